@@ -0,0 +1,242 @@
+package com.autoreload.chrome;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.accessibility.AccessibilityEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single entry point for accessibility events. Drops events that don't
+ * come from a browser, thins out storms of high-rate event types per
+ * window, and hands the rest to subscribers. Dispatch walks plain arrays
+ * and matches package names in place, so an event costs no allocation.
+ *
+ * With a configured package list only those packages count, and the list
+ * can be given to the system as AccessibilityServiceInfo.packageNames.
+ * Without one, the known browsers count plus any package whose name
+ * contains one of BROWSER_NAME_HINTS, so browsers missing from the list
+ * keep working.
+ *
+ * A debounced type is delivered on the leading edge, then at most once
+ * per interval for the same window. If events were dropped in between, a
+ * trailing delivery follows at the end of the interval so subscribers
+ * always see the last change. Trailing deliveries carry a null event.
+ *
+ * Runs on the handler's thread, which must be the accessibility thread.
+ */
+public class AccessibilityEventRouter {
+
+    public interface Subscriber {
+        /**
+         * {@code packageName} is the configured browser package the event
+         * came from. {@code event} is null for trailing deliveries.
+         */
+        void onEvent(int eventType, int windowId, String packageName, AccessibilityEvent event);
+    }
+
+    // Chrome and the Chromium and Gecko browsers whose toolbars the locator knows
+    public static final String[] DEFAULT_BROWSERS = {
+        "com.android.chrome", "com.chrome.beta", "com.chrome.dev", "com.chrome.canary",
+        "org.chromium.chrome", "com.brave.browser", "com.microsoft.emmx",
+        "com.sec.android.app.sbrowser", "com.opera.browser", "com.kiwibrowser.browser",
+        "com.vivaldi.browser", "org.mozilla.firefox", "org.mozilla.firefox_beta",
+        "org.mozilla.focus", "com.duckduckgo.mobile.android"
+    };
+
+    // Package name fragments that mark a browser when no list is configured
+    private static final String[] BROWSER_NAME_HINTS = {"chrome", "browser", "firefox"};
+
+    // Windows tracked for debouncing at once, more than enough for split screen
+    private static final int SLOTS = 8;
+
+    private final Handler handler;
+    private String[] packages;
+    // No list configured, also accept packages by BROWSER_NAME_HINTS
+    private boolean matchByName;
+
+    private int[] subscriberMasks = new int[4];
+    private Subscriber[] subscribers = new Subscriber[4];
+    private int subscriberCount = 0;
+
+    private int debouncedMask = 0;
+    private final long[] debounceByBit = new long[32];
+
+    // Debounce state per (event type, window)
+    private final int[] slotType = new int[SLOTS];
+    private final int[] slotWindow = new int[SLOTS];
+    private final long[] slotLastDelivered = new long[SLOTS];
+    private final String[] slotPendingPackage = new String[SLOTS];
+    private final Runnable[] slotTrailing = new Runnable[SLOTS];
+
+    /** {@code browserPackages} is the configured list, or null to recognise browsers by name. */
+    public AccessibilityEventRouter(Handler handler, String[] browserPackages) {
+        this.handler = handler;
+        setBrowserPackages(browserPackages);
+        for (int i = 0; i < SLOTS; i++) {
+            final int slot = i;
+            slotTrailing[i] = () -> flushTrailing(slot);
+        }
+    }
+
+    /** Packages from a comma-separated list in settings, or null if none are set. */
+    public static String[] browserPackages(String configured) {
+        if (configured == null || configured.trim().isEmpty()) return null;
+        List<String> packages = new ArrayList<>();
+        for (String name : configured.split(",")) {
+            if (!name.trim().isEmpty()) {
+                packages.add(name.trim());
+            }
+        }
+        return packages.isEmpty() ? null : packages.toArray(new String[0]);
+    }
+
+    /** Replaces the configured list, null recognises browsers by name again. */
+    public void setBrowserPackages(String[] browserPackages) {
+        matchByName = browserPackages == null;
+        packages = matchByName ? DEFAULT_BROWSERS.clone() : browserPackages;
+    }
+
+    // For AccessibilityServiceInfo.packageNames, null (every app) when browsers are matched by name
+    public String[] getPackages() {
+        return matchByName ? null : Arrays.copyOf(packages, packages.length);
+    }
+
+    public boolean isBrowser(CharSequence packageName) {
+        return findPackage(packageName) != null;
+    }
+
+    public void subscribe(int eventTypeMask, Subscriber subscriber) {
+        if (subscriberCount == subscribers.length) {
+            subscribers = Arrays.copyOf(subscribers, subscriberCount * 2);
+            subscriberMasks = Arrays.copyOf(subscriberMasks, subscriberCount * 2);
+        }
+        subscriberMasks[subscriberCount] = eventTypeMask;
+        subscribers[subscriberCount] = subscriber;
+        subscriberCount++;
+    }
+
+    /** Delivers events of {@code eventType} at most once per interval and window. */
+    public void setDebounce(int eventType, long intervalMs) {
+        int bit = Integer.numberOfTrailingZeros(eventType);
+        debounceByBit[bit] = intervalMs;
+        if (intervalMs > 0) {
+            debouncedMask |= eventType;
+        } else {
+            debouncedMask &= ~eventType;
+        }
+    }
+
+    public void dispatch(AccessibilityEvent event) {
+        String packageName = findPackage(event.getPackageName());
+        if (packageName == null) return;
+
+        int type = event.getEventType();
+        int windowId = event.getWindowId();
+        if ((type & debouncedMask) != 0 && !admit(type, windowId, packageName)) return;
+        deliver(type, windowId, packageName, event);
+    }
+
+    // Pending trailing deliveries are dropped, e.g. when reloading stops
+    public void reset() {
+        for (int i = 0; i < SLOTS; i++) {
+            handler.removeCallbacks(slotTrailing[i]);
+            slotType[i] = 0;
+            slotPendingPackage[i] = null;
+        }
+    }
+
+    private String findPackage(CharSequence packageName) {
+        if (packageName == null) return null;
+        for (String candidate : packages) {
+            if (candidate.contentEquals(packageName)) return candidate;
+        }
+        if (matchByName) {
+            for (String hint : BROWSER_NAME_HINTS) {
+                // Event package names are Strings already, so toString() doesn't copy
+                if (contains(packageName, hint)) return packageName.toString();
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(CharSequence text, String part) {
+        int last = text.length() - part.length();
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < part.length() && text.charAt(start + i) == part.charAt(i)) {
+                i++;
+            }
+            if (i == part.length()) return true;
+        }
+        return false;
+    }
+
+    private boolean admit(int type, int windowId, String packageName) {
+        long now = SystemClock.uptimeMillis();
+        long interval = debounceByBit[Integer.numberOfTrailingZeros(type)];
+        int slot = findSlot(type, windowId);
+        if (slot < 0) {
+            slot = claimSlot(type, windowId);
+            slotLastDelivered[slot] = now;
+            return true;
+        }
+        if (now - slotLastDelivered[slot] >= interval && slotPendingPackage[slot] == null) {
+            slotLastDelivered[slot] = now;
+            return true;
+        }
+        if (slotPendingPackage[slot] == null) {
+            handler.postAtTime(slotTrailing[slot], slotLastDelivered[slot] + interval);
+        }
+        slotPendingPackage[slot] = packageName;
+        return false;
+    }
+
+    private void flushTrailing(int slot) {
+        String packageName = slotPendingPackage[slot];
+        if (packageName == null) return;
+        slotPendingPackage[slot] = null;
+        slotLastDelivered[slot] = SystemClock.uptimeMillis();
+        deliver(slotType[slot], slotWindow[slot], packageName, null);
+    }
+
+    private int findSlot(int type, int windowId) {
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotType[i] == type && slotWindow[i] == windowId) return i;
+        }
+        return -1;
+    }
+
+    // Takes a free slot, or the one idle the longest
+    private int claimSlot(int type, int windowId) {
+        int victim = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (slotType[i] == 0) {
+                victim = i;
+                break;
+            }
+            if (slotPendingPackage[i] == null
+                    && (slotPendingPackage[victim] != null
+                        || slotLastDelivered[i] < slotLastDelivered[victim])) {
+                victim = i;
+            }
+        }
+        if (slotPendingPackage[victim] != null) {
+            // Every slot is waiting on a trailing delivery, send this one early
+            handler.removeCallbacks(slotTrailing[victim]);
+            flushTrailing(victim);
+        }
+        slotType[victim] = type;
+        slotWindow[victim] = windowId;
+        return victim;
+    }
+
+    private void deliver(int type, int windowId, String packageName, AccessibilityEvent event) {
+        for (int i = 0; i < subscriberCount; i++) {
+            if ((subscriberMasks[i] & type) != 0) {
+                subscribers[i].onEvent(type, windowId, packageName, event);
+            }
+        }
+    }
+}
@@ -3,46 +3,289 @@ package com.autoreload.chrome;
 import android.accessibilityservice.AccessibilityService;
 import android.accessibilityservice.AccessibilityServiceInfo;
 import android.accessibilityservice.GestureDescription;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
 import android.content.SharedPreferences;
-import android.graphics.Path;
+import android.graphics.Rect;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityWindowInfo;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ChromeAccessibilityService extends AccessibilityService {
 
-    private static boolean isReloading = false;
+    private static final String TAG = "ChromeAccessibility";
+
+    public static final String KEY_SETTLE_DELAY = "settle_delay_ms";
+    public static final long DEFAULT_SETTLE_DELAY = 300;
+    public static final String KEY_WATCH_MODE = "watch_mode";
+    public static final String KEY_WATCH_SCOPE = "watch_scope_id";
+    public static final String KEY_WATCH_KEYWORD = "watch_keyword";
+    // Extra comma-separated reload button labels on top of LabelMatcher.DEFAULT_LABELS
+    public static final String KEY_RELOAD_LABELS = "reload_labels";
+    // Reload every browser window on screen instead of only the focused one
+    public static final String KEY_MULTI_WINDOW = "multi_window";
+    // Comma-separated browser packages to listen to. Unset means the known browsers
+    // plus any package that looks like one, see AccessibilityEventRouter
+    public static final String KEY_BROWSER_PACKAGES = "browser_packages";
+    // Allows reloading by re-opening the URL, off by default since the first such
+    // reload opens the page in a new tab, see UrlReloader
+    public static final String KEY_URL_INTENT = "url_intent_enabled";
+
+    // The system holds back events of one type until this long after the last one
+    private static final long NOTIFICATION_TIMEOUT = 40;
+    // Content changes arrive in storms while a page renders, the load detector
+    // only needs to know that something changed
+    private static final long CONTENT_CHANGE_DEBOUNCE = 100;
+
+    // Per-step timeouts for the three-dot menu sequence
+    private static final long MENU_OPEN_TIMEOUT = 1500;
+    private static final long MENU_TAP_TIMEOUT = 500;
+    // The reload item closes the menu, if it is still open after this it is closed with BACK
+    private static final long MENU_CLOSE_DELAY = 300;
+
+    // A reload that hasn't settled by then is counted as failed and released
+    private static final long IN_FLIGHT_TIMEOUT = 5000;
+    private static final int MAX_GESTURE_RETRIES = 2;
+    private static final long GESTURE_RETRY_BACKOFF = 50;
+    // After a swipe, how long to wait for browser events showing the progress bar
+    private static final long SWIPE_CONFIRM_TIMEOUT = 1000;
+
+    public interface ReloadListener {
+        void onReloadStarted();
+
+        void onLoadComplete(long loadMillis);
+
+        // Reloading is suspended while the browser isn't in front or the screen is off
+        void onPauseChanged(boolean paused);
+
+        // Watch mode saw different page text or the keyword, see PageChangeWatcher results
+        void onPageChanged(int result);
+    }
+
+    private static final ReloadStateMachine reloadState = new ReloadStateMachine();
     private static ChromeAccessibilityService instance;
+    private static ReloadListener reloadListener;
     private SharedPreferences prefs;
+    private Handler mainHandler;
+    private LoadCompletionDetector loadDetector;
+    private AccessibilityEventRouter eventRouter;
+    // KEY_BROWSER_PACKAGES as the router was set up with
+    private String browserPackages;
+    private RefreshButtonLocator refreshLocator;
+    // Polled often while a load settles, so kept on a tight budget
+    private final NodeTraversal<AccessibilityNodeInfo> progressTraversal =
+        NodeTraversal.overAccessibility(64, 1500, 15);
+    private final NodeTraversal.Visitor<AccessibilityNodeInfo> progressVisitor =
+        ChromeAccessibilityService::visitForProgressBar;
+    private final UrlReloader urlReloader = new UrlReloader();
+    private GesturePipeline menuReloadPipeline;
+    private GestureGeometry geometry;
+    // Geometry changed while the menu sequence was running, its gestures are rebuilt once it is idle
+    private boolean menuGesturesStale = false;
+    // Browser window the menu was opened from, and the menu's own window once it showed up
+    private int menuParentWindowId = -1;
+    private int menuWindowId = -1;
+    private LabelMatcher reloadLabels;
+    // KEY_RELOAD_LABELS as reloadLabels was built from
+    private String extraLabels;
+    // The open menu is a small tree of its own
+    private final NodeTraversal<AccessibilityNodeInfo> menuTraversal =
+        NodeTraversal.overAccessibility(32, 300, 15);
+    private final NodeTraversal.Visitor<AccessibilityNodeInfo> menuItemVisitor = (node, depth) ->
+        depth > 0 && reloadLabels.match(node) != LabelMatcher.NO_MATCH
+            ? NodeTraversal.KEEP : NodeTraversal.CONTINUE;
+    private final Rect menuItemBounds = new Rect();
+    private final Runnable closeMenu = this::closeMenuIfOpen;
+    private SwipeCalibrator swipeCalibrator;
+    // Browser the last swipe went to, and whether its load is still unconfirmed
+    private String swipePackage;
+    private int swipeToken;
+    private int swipeAttempt;
+    private boolean swipeConfirmPending;
+    private final PageChangeWatcher pageWatcher = new PageChangeWatcher();
+    private boolean watchMode = false;
+    private StrategyRegistry strategyRegistry;
+    private boolean urlIntentEnabled;
+    private MultiWindowReloader multiWindowReloader;
+    private boolean multiWindowMode = false;
+    // Set by the throttle policy, gesture strategies are only tried after the others
+    private boolean cheapStrategiesOnly = false;
+    // Reused strategy order while cheapStrategiesOnly is set
+    private final List<ReloadStrategy> cheapFirst = new ArrayList<>();
+    private final ReloadMetrics metrics = ReloadMetrics.getInstance();
+    private ReloadJournal journal;
+    // What the journal records for the reload in flight
+    private int journalStrategy = ReloadJournal.STRATEGY_UNKNOWN;
+    private int journalWindowId = -1;
+    private long reloadStartedAt;
+    private SessionCheckpoint checkpoint;
+    // Strategy and window of the checkpointed session, tried first on the first reload after a resume
+    private int resumeStrategy = ReloadJournal.STRATEGY_UNKNOWN;
+    private int resumeWindowId = -1;
+    private String resumePackage;
+
+    private boolean browserInFront = false;
+    private boolean screenOn = true;
+    private boolean paused = false;
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            screenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+            updatePaused();
+        }
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         instance = this;
         prefs = getSharedPreferences("AutoReloadPrefs", MODE_PRIVATE);
+        mainHandler = new Handler(Looper.getMainLooper());
+        journal = ReloadJournal.getInstance(this);
+        checkpoint = SessionCheckpoint.getInstance(this);
+        browserPackages = prefs.getString(KEY_BROWSER_PACKAGES, null);
+        eventRouter = new AccessibilityEventRouter(mainHandler,
+            AccessibilityEventRouter.browserPackages(browserPackages));
+        eventRouter.setDebounce(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED, CONTENT_CHANGE_DEBOUNCE);
+        extraLabels = prefs.getString(KEY_RELOAD_LABELS, null);
+        reloadLabels = LabelMatcher.withExtraLabels(extraLabels);
+        refreshLocator = new RefreshButtonLocator(reloadLabels);
+        loadDetector = new LoadCompletionDetector(
+            mainHandler,
+            this::isPageLoading,
+            prefs.getLong(KEY_SETTLE_DELAY, DEFAULT_SETTLE_DELAY));
+        loadDetector.setListener(loadMillis -> {
+            strategyRegistry.recordLoadComplete(loadMillis);
+            metrics.onLoadSettled(loadMillis);
+            journal.record(journalStrategy, journalWindowId, ReloadJournal.OUTCOME_LOADED, loadMillis);
+            if (watchMode) {
+                checkPageChanged();
+            }
+            finishReload(reloadState.currentToken());
+            if (reloadListener != null) {
+                reloadListener.onLoadComplete(loadMillis);
+            }
+        });
+        geometry = new GestureGeometry(this);
+        swipeCalibrator = new SwipeCalibrator(prefs);
+        menuReloadPipeline = createMenuReloadPipeline();
+        urlIntentEnabled = prefs.getBoolean(KEY_URL_INTENT, false);
+        strategyRegistry = new StrategyRegistry(prefs, createStrategies());
+        multiWindowReloader = new MultiWindowReloader(this, mainHandler, refreshLocator,
+            this::hasProgressBar,
+            prefs.getLong(KEY_SETTLE_DELAY, DEFAULT_SETTLE_DELAY));
+        multiWindowReloader.setListener(new MultiWindowReloader.Listener() {
+            @Override
+            public void onReloadStarted(int windowId) {
+                if (reloadListener != null) {
+                    reloadListener.onReloadStarted();
+                }
+            }
+
+            @Override
+            public void onLoadComplete(int windowId, long loadMillis) {
+                if (reloadListener != null) {
+                    reloadListener.onLoadComplete(loadMillis);
+                }
+            }
+        });
+
+        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        screenOn = powerManager == null || powerManager.isInteractive();
+        IntentFilter screenFilter = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        registerReceiver(screenReceiver, screenFilter);
+
+        // Lets a running menu sequence advance as soon as the menu has opened
+        eventRouter.subscribe(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED,
+            (type, windowId, packageName, event) -> menuReloadPipeline.onAccessibilityEvent(event));
+        eventRouter.subscribe(AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED
+                | AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED,
+            this::onBrowserEvent);
     }
 
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
-        // Check if Chrome is active
-        if (isReloading && event.getPackageName() != null) {
-            String packageName = event.getPackageName().toString();
-            if (packageName.contains("chrome") || packageName.contains("browser")) {
-                // Chrome is active
-            }
+        eventRouter.dispatch(event);
+    }
+
+    private void onBrowserEvent(int type, int windowId, String packageName, AccessibilityEvent event) {
+        if (!reloadState.isActive()) return;
+
+        if (type == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
+            // A browser window came up, check whether it is the one in front
+            updateForegroundWindow();
+            // New window or tab layout, cached reload control locations and URLs are stale
+            refreshLocator.invalidate(packageName);
+            urlReloader.invalidate(packageName);
+        }
+        if (multiWindowMode) {
+            // Each window settles on its own
+            multiWindowReloader.onContentChanged(windowId);
+            return;
         }
+        if (loadDetector.isArmed() && !loadDetector.hasSeenContentChange()) {
+            metrics.onFirstContentChange();
+        }
+        if (swipeConfirmPending && packageName.equals(swipePackage) && isPageLoading()) {
+            // The swipe pulled the page, no need to wait for the timeout
+            mainHandler.removeCallbacks(swipeConfirm);
+            onSwipeResult(true);
+        }
+        // Browser content is still changing, push the load-complete check back
+        loadDetector.onContentChanged();
     }
 
     @Override
     public void onInterrupt() {
     }
 
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // Rotation or display size change, gesture coordinates must be recomputed
+        geometry.invalidate();
+        menuGesturesStale = true;
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
+        unregisterReceiver(screenReceiver);
+        // The state is static and outlives this instance, a reload in flight
+        // would otherwise block the next instance forever
+        reloadState.stop();
+        if (loadDetector != null) {
+            loadDetector.disarm();
+        }
+        if (menuReloadPipeline != null) {
+            menuReloadPipeline.cancel();
+        }
+        if (multiWindowReloader != null) {
+            multiWindowReloader.stop();
+        }
+        if (strategyRegistry != null) {
+            strategyRegistry.save();
+        }
+        if (mainHandler != null) {
+            mainHandler.removeCallbacks(inFlightTimeout);
+            mainHandler.removeCallbacks(pendingReload);
+            mainHandler.removeCallbacks(swipeConfirm);
+            mainHandler.removeCallbacks(closeMenu);
+        }
         instance = null;
     }
 
@@ -53,12 +296,26 @@ public class ChromeAccessibilityService extends AccessibilityService {
 
         // Configure service info programmatically
         AccessibilityServiceInfo info = new AccessibilityServiceInfo();
-        info.eventTypes = AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED;
+        info.eventTypes = AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED |
+                          AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED;
         info.feedbackType = AccessibilityServiceInfo.FEEDBACK_GENERIC;
+        // With a configured browser list, events from other apps aren't even sent
+        info.packageNames = eventRouter.getPackages();
+        info.notificationTimeout = NOTIFICATION_TIMEOUT;
         info.flags = AccessibilityServiceInfo.FLAG_REPORT_VIEW_IDS |
                      AccessibilityServiceInfo.FLAG_RETRIEVE_INTERACTIVE_WINDOWS |
                      AccessibilityServiceInfo.FLAG_INCLUDE_NOT_IMPORTANT_VIEWS;
         setServiceInfo(info);
+
+        // Accessibility services can't be sticky, but the system binds this one
+        // again after the process died. Pick the session up from its checkpoint.
+        if (checkpoint.isActive()) {
+            resumeStrategy = checkpoint.getStrategy();
+            resumeWindowId = checkpoint.getWindowId();
+            resumePackage = checkpoint.getPackage();
+            startForegroundService(new Intent(this, FloatingButtonService.class)
+                .setAction(FloatingButtonService.ACTION_RESUME));
+        }
     }
 
     public static boolean isServiceEnabled() {
@@ -66,157 +323,610 @@ public class ChromeAccessibilityService extends AccessibilityService {
     }
 
     public static void setReloading(boolean reloading) {
-        isReloading = reloading;
+        if (reloading) {
+            reloadState.start();
+        } else {
+            reloadState.stop();
+        }
+        if (reloading && instance != null) {
+            // Re-read the URL bar for a new session, the user may have navigated
+            instance.urlReloader.clear();
+            instance.paused = false;
+            instance.loadBrowserSettings();
+            instance.multiWindowMode = instance.prefs.getBoolean(KEY_MULTI_WINDOW, false);
+            instance.updateForegroundWindow();
+            instance.loadWatchSettings();
+            instance.loadStrategySettings();
+            instance.loadLabelSettings();
+            if (instance.multiWindowMode && !instance.paused) {
+                instance.startMultiWindow();
+            }
+        }
+        if (!reloading && instance != null) {
+            instance.paused = false;
+            instance.loadDetector.disarm();
+            instance.menuReloadPipeline.cancel();
+            instance.multiWindowReloader.stop();
+            instance.eventRouter.reset();
+            instance.strategyRegistry.save();
+            instance.mainHandler.removeCallbacks(instance.inFlightTimeout);
+            instance.mainHandler.removeCallbacks(instance.pendingReload);
+            instance.mainHandler.removeCallbacks(instance.swipeConfirm);
+            instance.swipeConfirmPending = false;
+        }
+    }
+
+    // Receives reload-started and load-complete notifications
+    public static void setReloadListener(ReloadListener listener) {
+        reloadListener = listener;
+    }
+
+    // Address of the page in the active browser window as its URL bar shows
+    // it, often without the scheme, or null if it can't be read
+    public static String getCurrentAddress() {
+        if (instance == null) return null;
+        AccessibilityNodeInfo rootNode = instance.getRootInActiveWindow();
+        if (rootNode == null) return null;
+        String address = instance.urlReloader.getAddress(rootNode);
+        rootNode.recycle();
+        return address;
+    }
+
+    /**
+     * How much of the page the last watch mode check could compare, one of
+     * PageChangeWatcher's COVERAGE values.
+     */
+    public static int getWatchCoverage() {
+        return instance == null ? PageChangeWatcher.COVERAGE_FULL : instance.pageWatcher.getCoverage();
+    }
+
+    public static boolean isPaused() {
+        return instance != null && instance.paused;
+    }
+
+    public static void setSettleDelay(long settleDelayMs) {
+        if (instance != null) {
+            instance.loadDetector.setSettleDelay(settleDelayMs);
+            instance.multiWindowReloader.setSettleDelay(settleDelayMs);
+        }
+    }
+
+    // Per-window reload counts and latency while reloading several windows, or null
+    public static String getWindowReport() {
+        if (instance == null || !instance.multiWindowReloader.isRunning()) return null;
+        return instance.multiWindowReloader.formatReport();
+    }
+
+    public static void setCheapStrategiesOnly(boolean cheapOnly) {
+        if (instance != null) {
+            instance.cheapStrategiesOnly = cheapOnly;
+        }
     }
 
     public static void triggerReload() {
         if (instance != null) {
-            instance.performReloadGesture();
+            instance.startReload();
         }
     }
 
-    private void performReloadGesture() {
-        // Method 1: Try to find and click the refresh button in Chrome's menu
-        try {
-            AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-            if (rootNode == null) {
-                performThreeDotMenuReload();
-                return;
-            }
+    private final Runnable pendingReload = this::startReload;
+
+    private final Runnable inFlightTimeout = () -> {
+        // The reload never settled, give up on it so the next one can run
+        loadDetector.disarm();
+        strategyRegistry.recordFailure();
+        metrics.onFailure();
+        journalOutcome(ReloadJournal.OUTCOME_TIMEOUT);
+        finishReload(reloadState.currentToken());
+    };
+
+    private void loadWatchSettings() {
+        // Windows reloaded side by side have no single page to compare
+        watchMode = !multiWindowMode && prefs.getBoolean(KEY_WATCH_MODE, false);
+        pageWatcher.setScope(prefs.getString(KEY_WATCH_SCOPE, null));
+        pageWatcher.setKeyword(prefs.getString(KEY_WATCH_KEYWORD, null));
+    }
 
-            // Try to find the URL bar first - Chrome specific
-            String chromePackage = "com.android.chrome";
-            String bravePackage = "com.brave.browser";
-            String currentPackage = String.valueOf(rootNode.getPackageName());
+    private void loadStrategySettings() {
+        boolean urlIntent = prefs.getBoolean(KEY_URL_INTENT, false);
+        if (urlIntent == urlIntentEnabled) return;
+        urlIntentEnabled = urlIntent;
+        // Statistics live in prefs, so the new registry starts from where this one was
+        strategyRegistry.save();
+        strategyRegistry = new StrategyRegistry(prefs, createStrategies());
+    }
+
+    private void loadBrowserSettings() {
+        String packages = prefs.getString(KEY_BROWSER_PACKAGES, null);
+        if (TextUtils.equals(packages, browserPackages)) return;
+        browserPackages = packages;
+        eventRouter.setBrowserPackages(AccessibilityEventRouter.browserPackages(packages));
+        // The system filters events by the same list
+        AccessibilityServiceInfo info = getServiceInfo();
+        if (info != null) {
+            info.packageNames = eventRouter.getPackages();
+            setServiceInfo(info);
+        }
+    }
+
+    private void loadLabelSettings() {
+        String labels = prefs.getString(KEY_RELOAD_LABELS, null);
+        if (TextUtils.equals(labels, extraLabels)) return;
+        extraLabels = labels;
+        reloadLabels = LabelMatcher.withExtraLabels(labels);
+        refreshLocator.setMatcher(reloadLabels);
+    }
+
+    private void startMultiWindow() {
+        // Adaptive mode reloads each window as soon as it settled
+        boolean fixed = FloatingButtonService.MODE_FIXED.equals(
+            prefs.getString(FloatingButtonService.KEY_RELOAD_MODE, FloatingButtonService.MODE_ADAPTIVE));
+        multiWindowReloader.start(fixed
+            ? prefs.getLong(FloatingButtonService.KEY_RELOAD_INTERVAL, FloatingButtonService.DEFAULT_RELOAD_INTERVAL)
+            : 0);
+    }
+
+    private void checkPageChanged() {
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) return;
+        int result = pageWatcher.check(rootNode);
+        rootNode.recycle();
+        if (result != PageChangeWatcher.RESULT_NONE && reloadListener != null) {
+            reloadListener.onPageChanged(result);
+        }
+    }
+
+    static boolean isBrowserPackage(CharSequence packageName) {
+        return instance != null && instance.eventRouter.isBrowser(packageName);
+    }
+
+    private void updateForegroundWindow() {
+        // The active window is the one with input focus, so keyboards and our overlay don't count
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) return;
+        CharSequence packageName = rootNode.getPackageName();
+        rootNode.recycle();
+        if (packageName == null || getPackageName().contentEquals(packageName)) return;
 
-            // Perform swipe down gesture for reload (universal refresh gesture)
-            performSwipeDownRefresh();
+        browserInFront = eventRouter.isBrowser(packageName);
+        updatePaused();
+    }
+
+    private void updatePaused() {
+        // Split-screen browser windows stay visible without having focus
+        boolean visible = multiWindowMode || browserInFront;
+        boolean shouldPause = reloadState.isActive() && !(visible && screenOn);
+        if (shouldPause == paused) return;
+        paused = shouldPause;
+        if (multiWindowMode) {
+            if (paused) {
+                multiWindowReloader.stop();
+            } else {
+                startMultiWindow();
+            }
+        }
+        if (reloadListener != null) {
+            reloadListener.onPauseChanged(paused);
+        }
+    }
+
+    private void startReload() {
+        if (!multiWindowMode && !paused) {
+            // Only browser events are delivered, so switching to another app
+            // is noticed here rather than from that app's events
+            updateForegroundWindow();
+        }
+        if (paused) return;
+        if (multiWindowMode) {
+            // Windows run on their own schedules, a trigger only reloads the ones already due
+            multiWindowReloader.triggerDue();
+            return;
+        }
+        int token = reloadState.begin();
+        if (token == ReloadStateMachine.NO_TOKEN) {
+            if (reloadState.isInFlight()) {
+                // Merged into the pending trigger instead of stacking gestures
+                metrics.onCoalesced();
+            }
             return;
+        }
 
-        } catch (Exception e) {
-            // Fallback to three dot menu method
-            performThreeDotMenuReload();
+        metrics.onTrigger();
+        reloadStartedAt = SystemClock.uptimeMillis();
+        journalStrategy = ReloadJournal.STRATEGY_UNKNOWN;
+        journalWindowId = -1;
+        loadDetector.arm();
+        mainHandler.removeCallbacks(inFlightTimeout);
+        mainHandler.postDelayed(inFlightTimeout, IN_FLIGHT_TIMEOUT);
+        if (reloadListener != null) {
+            reloadListener.onReloadStarted();
         }
+        performReloadGesture(token);
     }
 
-    private void performSwipeDownRefresh() {
-        // Perform a swipe down gesture in the middle-top of screen
-        // This triggers pull-to-refresh in most modern browsers including Chrome
-        Path path = new Path();
+    private void journalOutcome(int outcome) {
+        journal.record(journalStrategy, journalWindowId, outcome,
+            SystemClock.uptimeMillis() - reloadStartedAt);
+    }
 
-        // Get screen dimensions - use conservative values
-        float startX = 540;  // Center of screen width
-        float startY = 300;  // Top portion of screen (URL bar area)
-        float endY = 1200;   // Swipe down significantly
+    private void finishReload(int token) {
+        if (token == ReloadStateMachine.NO_TOKEN || token != reloadState.currentToken()) return;
+        mainHandler.removeCallbacks(inFlightTimeout);
+        if (reloadState.finish(token)) {
+            // A trigger came in while this reload was running, run it now
+            mainHandler.post(pendingReload);
+        }
+    }
 
-        path.moveTo(startX, startY);
-        path.lineTo(startX, endY);
+    private boolean isPageLoading() {
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) return false;
+        boolean loading = hasProgressBar(rootNode);
+        rootNode.recycle();
+        return loading;
+    }
 
-        GestureDescription.StrokeDescription strokeDescription =
-            new GestureDescription.StrokeDescription(path, 0, 300);
+    private boolean hasProgressBar(AccessibilityNodeInfo root) {
+        // A walk cut short by its budget can't tell, so count it as still loading
+        // rather than letting the load settle early
+        return progressTraversal.walk(root, progressVisitor) != NodeTraversal.RESULT_COMPLETE;
+    }
 
-        GestureDescription gestureDescription = new GestureDescription.Builder()
-            .addStroke(strokeDescription)
-            .build();
+    private static int visitForProgressBar(AccessibilityNodeInfo node, int depth) {
+        if (depth == 0) return NodeTraversal.CONTINUE;
+        CharSequence className = node.getClassName();
+        // The browser's progress bar is never inside the page, and heavy pages
+        // would use up the whole budget
+        if (className != null && "android.webkit.WebView".contentEquals(className)) {
+            return NodeTraversal.SKIP_CHILDREN;
+        }
+        // Only the browser's own toolbar views, whose IDs are resources of its
+        // package. Page elements like <progress> or HTML ids never qualify.
+        String viewId = node.getViewIdResourceName();
+        if (!isOwnResource(node.getPackageName(), viewId)) return NodeTraversal.CONTINUE;
+        boolean isProgressBar = (className != null && "android.widget.ProgressBar".contentEquals(className))
+            || viewId.indexOf("progress", viewId.indexOf(":id/")) >= 0;
+        return isProgressBar && node.isVisibleToUser() ? NodeTraversal.STOP : NodeTraversal.CONTINUE;
+    }
 
-        dispatchGesture(gestureDescription, new GestureResultCallback() {
+    // True for IDs of the form "<packageName>:id/<name>"
+    private static boolean isOwnResource(CharSequence packageName, String viewId) {
+        if (packageName == null || viewId == null) return false;
+        int length = packageName.length();
+        if (!viewId.startsWith(":id/", length)) return false;
+        for (int i = 0; i < length; i++) {
+            if (viewId.charAt(i) != packageName.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private List<ReloadStrategy> createStrategies() {
+        List<ReloadStrategy> strategies = new ArrayList<>();
+
+        // Click the browser's own reload control when it is on screen
+        strategies.add(new ReloadStrategy() {
             @Override
-            public void onCompleted(GestureDescription gestureDescription) {
-                super.onCompleted(gestureDescription);
+            public String getName() {
+                return "node_click";
             }
 
             @Override
-            public void onCancelled(GestureDescription gestureDescription) {
-                super.onCancelled(gestureDescription);
+            public boolean usesGesture() {
+                return false;
             }
-        }, null);
-    }
 
-    private void performThreeDotMenuReload() {
-        try {
-            // First, try to simulate a content key down (F5 equivalent on some devices)
-            // Or tap the menu button then reload
-
-            Handler handler = new Handler(Looper.getMainLooper());
-
-            // Step 1: Click the three-dot menu (top right corner)
-            Path menuPath = new Path();
-            menuPath.moveTo(950, 150);  // Approximate three-dot menu position
-            GestureDescription.StrokeDescription menuStroke =
-                new GestureDescription.StrokeDescription(menuPath, 0, 100);
-            GestureDescription menuGesture = new GestureDescription.Builder()
-                .addStroke(menuStroke)
-                .build();
-
-            dispatchGesture(menuGesture, null, null);
-
-            // Step 2: Wait for menu to open, then click reload
-            handler.postDelayed(() -> {
-                Path reloadPath = new Path();
-                reloadPath.moveTo(800, 400);  // Approximate reload option position
-                GestureDescription.StrokeDescription reloadStroke =
-                    new GestureDescription.StrokeDescription(reloadPath, 0, 100);
-                GestureDescription reloadGesture = new GestureDescription.Builder()
-                    .addStroke(reloadStroke)
-                    .build();
-
-                dispatchGesture(reloadGesture, null, null);
-
-                // Step 3: Tap outside to close menu
-                handler.postDelayed(() -> {
-                    Path closePath = new Path();
-                    closePath.moveTo(200, 500);
-                    GestureDescription.StrokeDescription closeStroke =
-                        new GestureDescription.StrokeDescription(closePath, 0, 50);
-                    GestureDescription closeGesture = new GestureDescription.Builder()
-                        .addStroke(closeStroke)
-                        .build();
-
-                    dispatchGesture(closeGesture, null, null);
-                }, 200);
-            }, 500);
+            @Override
+            public boolean perform(AccessibilityNodeInfo root) {
+                int scans = refreshLocator.getScans();
+                AccessibilityNodeInfo refreshButton = refreshLocator.locate(root);
+                if (refreshButton == null) return false;
+                if (refreshLocator.getScans() != scans) {
+                    Log.d(TAG, "Reload control found by " + refreshLocator.getLastRule());
+                }
+                boolean clicked = refreshButton.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+                refreshButton.recycle();
+                if (clicked) {
+                    // No gesture involved, the click is done once it was delivered
+                    metrics.onGestureCompleted();
+                }
+                return clicked;
+            }
+        });
+
+        // Re-open the current URL in the same browser, no gesture needed
+        if (urlIntentEnabled) {
+            strategies.add(new ReloadStrategy() {
+                @Override
+                public String getName() {
+                    return "url_intent";
+                }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+                @Override
+                public boolean usesGesture() {
+                    return false;
+                }
+
+                @Override
+                public boolean perform(AccessibilityNodeInfo root) {
+                    if (!urlReloader.reload(ChromeAccessibilityService.this, root)) return false;
+                    metrics.onGestureCompleted();
+                    return true;
+                }
+            });
         }
+
+        // Swipe down gesture for reload (universal refresh gesture)
+        strategies.add(new ReloadStrategy() {
+            @Override
+            public String getName() {
+                return "swipe";
+            }
+
+            @Override
+            public boolean usesGesture() {
+                return true;
+            }
+
+            @Override
+            public boolean perform(AccessibilityNodeInfo root) {
+                performSwipeDownRefresh(reloadState.currentToken(), 0);
+                return true;
+            }
+        });
+
+        strategies.add(new ReloadStrategy() {
+            @Override
+            public String getName() {
+                return "menu";
+            }
+
+            @Override
+            public boolean usesGesture() {
+                return true;
+            }
+
+            @Override
+            public boolean perform(AccessibilityNodeInfo root) {
+                performThreeDotMenuReload(reloadState.currentToken());
+                return true;
+            }
+        });
+        return strategies;
     }
 
-    private void findAndClickRefreshButton(AccessibilityNodeInfo node) {
-        if (node == null) return;
+    private void performReloadGesture(int token) {
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        if (rootNode == null) {
+            journalStrategy = ReloadJournal.STRATEGY_MENU;
+            performThreeDotMenuReload(token);
+            return;
+        }
+        journalWindowId = rootNode.getWindowId();
 
-        // Recursively search for refresh button
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                CharSequence text = child.getText();
-                CharSequence contentDesc = child.getContentDescription();
-                String viewId = child.getViewIdResourceName();
+        try {
+            // Only rebuilds gestures when the screen or browser window changed
+            if (geometry.update(rootNode)) {
+                menuGesturesStale = true;
+            }
+            updateMenuPipelineGestures();
 
-                // Check for refresh-related identifiers
-                boolean isRefreshButton = false;
-                if (text != null && text.toString().toLowerCase().contains("refresh")) {
-                    isRefreshButton = true;
+            // Try strategies fastest-first for this browser until one starts a reload
+            String currentPackage = String.valueOf(rootNode.getPackageName());
+            swipePackage = currentPackage;
+            List<ReloadStrategy> ordered = strategyRegistry.order(currentPackage);
+            if (cheapStrategiesOnly) {
+                // Throttled: clicks and intents first, gestures only if neither works
+                cheapFirst.clear();
+                for (ReloadStrategy strategy : ordered) {
+                    if (!strategy.usesGesture()) cheapFirst.add(strategy);
                 }
-                if (contentDesc != null && contentDesc.toString().toLowerCase().contains("refresh")) {
-                    isRefreshButton = true;
+                for (ReloadStrategy strategy : ordered) {
+                    if (strategy.usesGesture()) cheapFirst.add(strategy);
                 }
-                if (viewId != null && viewId.toLowerCase().contains("refresh")) {
-                    isRefreshButton = true;
+                ordered = cheapFirst;
+            }
+            if (resumeStrategy != ReloadJournal.STRATEGY_UNKNOWN) {
+                if (journalWindowId == resumeWindowId && currentPackage.equals(resumePackage)) {
+                    // Same window as before the restart, the strategy that last worked goes first
+                    preferStrategy(ordered, resumeStrategy);
                 }
-                if (viewId != null && viewId.contains("reload_button")) {
-                    isRefreshButton = true;
+                resumeStrategy = ReloadJournal.STRATEGY_UNKNOWN;
+            }
+            for (ReloadStrategy strategy : ordered) {
+                journalStrategy = ReloadJournal.strategyCode(strategy.getName());
+                if (strategy.perform(rootNode)) {
+                    strategyRegistry.recordAttempt(currentPackage, strategy);
+                    checkpoint.setTarget(journalStrategy, journalWindowId, currentPackage);
+                    return;
                 }
+                strategyRegistry.recordUnavailable(currentPackage, strategy);
+            }
+        } catch (Exception e) {
+            // Fallback to three dot menu method
+            journalStrategy = ReloadJournal.STRATEGY_MENU;
+            performThreeDotMenuReload(token);
+        } finally {
+            rootNode.recycle();
+        }
+    }
+
+    private static void preferStrategy(List<ReloadStrategy> ordered, int strategyCode) {
+        for (int i = 1; i < ordered.size(); i++) {
+            if (ReloadJournal.strategyCode(ordered.get(i).getName()) == strategyCode) {
+                ordered.add(0, ordered.remove(i));
+                return;
+            }
+        }
+    }
 
-                if (isRefreshButton && child.isClickable()) {
-                    child.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+    private void performSwipeDownRefresh(final int token, final int attempt) {
+        // Perform a swipe down gesture in the top part of the browser window
+        // This triggers pull-to-refresh in most modern browsers including Chrome
+        final String browser = swipePackage;
+        geometry.setSwipeProfile(swipeCalibrator.getDuration(browser), swipeCalibrator.getDistance(browser));
+        mainHandler.removeCallbacks(swipeConfirm);
+        swipeConfirmPending = false;
+        dispatchGesture(geometry.getSwipe(), new GestureResultCallback() {
+            @Override
+            public void onCompleted(GestureDescription gestureDescription) {
+                super.onCompleted(gestureDescription);
+                metrics.onGestureCompleted();
+                // Tell the calibrator whether this swipe was enough to start a load
+                swipeToken = token;
+                swipeAttempt = attempt;
+                // Browser events confirm the load as it starts, this only runs if none does
+                swipeConfirmPending = true;
+                mainHandler.removeCallbacks(swipeConfirm);
+                mainHandler.postDelayed(swipeConfirm, SWIPE_CONFIRM_TIMEOUT);
+            }
+
+            @Override
+            public void onCancelled(GestureDescription gestureDescription) {
+                super.onCancelled(gestureDescription);
+                metrics.onGestureCancelled();
+                if (token != reloadState.currentToken()) return;
+
+                if (attempt < MAX_GESTURE_RETRIES) {
+                    // Usually cancelled by a touch or another gesture, try again shortly
+                    mainHandler.postDelayed(() -> {
+                        if (token == reloadState.currentToken()) {
+                            performSwipeDownRefresh(token, attempt + 1);
+                        }
+                    }, GESTURE_RETRY_BACKOFF << attempt);
                     return;
                 }
+                strategyRegistry.recordFailure();
+                metrics.onFailure();
+                journalOutcome(ReloadJournal.OUTCOME_FAILED);
+                loadDetector.disarm();
+                finishReload(token);
+            }
+        }, null);
+    }
 
-                findAndClickRefreshButton(child);
-                if (child != node) { // Don't recycle the root
-                    child.recycle();
-                }
+    // Timeout for the swipe confirmation, a load that started late still counts
+    private final Runnable swipeConfirm = () -> {
+        if (swipeConfirmPending) {
+            onSwipeResult(isPageLoading());
+        }
+    };
+
+    private void onSwipeResult(boolean pulled) {
+        swipeConfirmPending = false;
+        String browser = swipePackage;
+        if (browser == null) return;
+        boolean wasCalibrating = swipeCalibrator.isCalibrating(browser);
+        swipeCalibrator.onResult(browser, pulled);
+        logCalibration(browser, wasCalibrating);
+        // Without a progress bar the swipe was too short or too fast to pull
+        if (!pulled && wasCalibrating && swipeAttempt < MAX_GESTURE_RETRIES
+                && swipeToken == reloadState.currentToken()) {
+            // A failed probe shouldn't cost a reload, try the next candidate
+            performSwipeDownRefresh(swipeToken, swipeAttempt + 1);
+        }
+    }
+
+    private void logCalibration(String browser, boolean wasCalibrating) {
+        String profile = swipeCalibrator.describe(browser);
+        if (wasCalibrating && profile != null) {
+            Log.d(TAG, "Swipe calibrated for " + browser + ": " + profile);
+        }
+    }
+
+    private GesturePipeline createMenuReloadPipeline() {
+        GesturePipeline pipeline = new GesturePipeline(new Handler(Looper.getMainLooper()),
+            (gesture, callback) -> dispatchGesture(gesture, callback, null));
+
+        // Step 1: Click the three-dot menu (top right corner), wait until the menu window shows up
+        pipeline.addStep(geometry.getMenuTap(), this::onMenuWindow, MENU_OPEN_TIMEOUT);
+
+        // Step 2: Click the reload item wherever the open menu put it
+        pipeline.addStep(this::getMenuReloadTap, MENU_TAP_TIMEOUT);
+        return pipeline;
+    }
+
+    // Step 1's condition, remembers which window the menu is
+    private boolean onMenuWindow(AccessibilityEvent event) {
+        if (event.getEventType() != AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED
+                || !eventRouter.isBrowser(event.getPackageName())
+                || event.getWindowId() == menuParentWindowId) {
+            return false;
+        }
+        menuWindowId = event.getWindowId();
+        return true;
+    }
+
+    private GestureDescription getMenuReloadTap() {
+        AccessibilityNodeInfo menuRoot = findWindowRoot(menuWindowId);
+        if (menuRoot == null) return null;
+        menuTraversal.walk(menuRoot, menuItemVisitor);
+        menuRoot.recycle();
+        AccessibilityNodeInfo item = menuTraversal.takeKept();
+        if (item == null) {
+            Log.w(TAG, "No reload item in the open menu");
+            return null;
+        }
+        item.getBoundsInScreen(menuItemBounds);
+        item.recycle();
+        return menuItemBounds.isEmpty() ? null : geometry.getTap(menuItemBounds);
+    }
+
+    // BACK only while the menu is still showing, otherwise it would leave the page
+    private void closeMenuIfOpen() {
+        if (menuWindowId < 0) return;
+        AccessibilityNodeInfo menuRoot = findWindowRoot(menuWindowId);
+        menuWindowId = -1;
+        if (menuRoot == null) return;
+        menuRoot.recycle();
+        performGlobalAction(GLOBAL_ACTION_BACK);
+    }
+
+    private AccessibilityNodeInfo findWindowRoot(int windowId) {
+        if (windowId < 0) return null;
+        List<AccessibilityWindowInfo> infos = getWindows();
+        if (infos == null) return null;
+        AccessibilityNodeInfo root = null;
+        for (AccessibilityWindowInfo info : infos) {
+            if (root == null && info.getId() == windowId) {
+                root = info.getRoot();
             }
+            info.recycle();
         }
+        return root;
+    }
+
+    // A running sequence keeps the gestures it started with
+    private void updateMenuPipelineGestures() {
+        if (!menuGesturesStale || menuReloadPipeline.isRunning()) return;
+        menuGesturesStale = false;
+        menuReloadPipeline.setGesture(0, geometry.getMenuTap());
+    }
+
+    private void performThreeDotMenuReload(final int token) {
+        // Each step advances on gesture completion instead of fixed delays
+        menuReloadPipeline.cancel();
+        mainHandler.removeCallbacks(closeMenu);
+        closeMenuIfOpen();
+        updateMenuPipelineGestures();
+        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        menuParentWindowId = rootNode != null ? rootNode.getWindowId() : -1;
+        if (rootNode != null) {
+            rootNode.recycle();
+        }
+        menuReloadPipeline.start(success -> {
+            updateMenuPipelineGestures();
+            mainHandler.postDelayed(closeMenu, MENU_CLOSE_DELAY);
+            if (token != reloadState.currentToken()) return;
+            if (success) {
+                metrics.onGestureCompleted();
+            } else {
+                Log.w(TAG, "Menu reload sequence failed or timed out");
+                strategyRegistry.recordFailure();
+                metrics.onFailure();
+                journalOutcome(ReloadJournal.OUTCOME_FAILED);
+                loadDetector.disarm();
+                finishReload(token);
+            }
+        });
     }
 }
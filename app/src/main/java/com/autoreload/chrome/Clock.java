@@ -0,0 +1,14 @@
+package com.autoreload.chrome;
+
+import android.os.SystemClock;
+
+/**
+ * Monotonic millisecond time source for scheduling and budgets, so the
+ * logic that depends on time can run against a fake clock.
+ */
+public interface Clock {
+
+    Clock UPTIME = SystemClock::uptimeMillis;
+
+    long uptimeMillis();
+}
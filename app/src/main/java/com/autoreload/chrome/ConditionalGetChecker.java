@@ -0,0 +1,215 @@
+package com.autoreload.chrome;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asks the server whether a page changed before the browser is told to
+ * reload it. Sends a HEAD request with If-None-Match / If-Modified-Since
+ * from the last response; a 304, or a 200 with the same ETag or
+ * Last-Modified, counts as unchanged. Anything it can't decide counts as
+ * changed so no update is missed.
+ *
+ * Takes the page address as the URL bar shows it. Browsers hide the
+ * scheme there, so an address without one is tried over https first and
+ * over plain http only if the connection fails. Redirects are followed
+ * here as well, including http to https, which HttpURLConnection won't do
+ * by itself. Where an address ended up is remembered, so later checks go
+ * straight there.
+ *
+ * Plain java.net only, so it can be pointed at any local HTTP server.
+ */
+public class ConditionalGetChecker {
+
+    public interface Callback {
+        void onResult(boolean changed);
+    }
+
+    private static final int CONNECT_TIMEOUT = 3000;
+    private static final int READ_TIMEOUT = 5000;
+    private static final int MAX_REDIRECTS = 3;
+
+    private static class Validators {
+        final String etag;
+        final String lastModified;
+
+        Validators(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(r -> new Thread(r, "ConditionalGet"));
+    private final Executor callbackExecutor;
+    private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+    // Page address to the URL its last successful check ended up at
+    private final Map<String, String> targets = new ConcurrentHashMap<>();
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ConditionalGetChecker(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /** Whether {@code address} is an http(s) page address, with or without the scheme. */
+    public static boolean canCheck(String address) {
+        return address != null && (!address.contains("://") || address.startsWith("http://")
+            || address.startsWith("https://"));
+    }
+
+    /**
+     * Checks {@code address} in the background and reports on the callback
+     * executor. Returns false without doing anything if a check is still
+     * running.
+     */
+    public boolean check(final String address, final Callback callback) {
+        if (!busy.compareAndSet(false, true)) return false;
+        executor.execute(() -> {
+            boolean changed = isChanged(address);
+            busy.set(false);
+            callbackExecutor.execute(() -> callback.onResult(changed));
+        });
+        return true;
+    }
+
+    /** Runs a check on the calling thread. */
+    public boolean isChanged(String address) {
+        try {
+            boolean changed = request(address);
+            if (changed) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return changed;
+        } catch (IOException | RuntimeException e) {
+            // Counts as changed, but neither as a hit nor a miss. The next check starts over.
+            targets.remove(address);
+            return true;
+        }
+    }
+
+    private boolean request(String address) throws IOException {
+        Validators previous = validators.get(address);
+        String target = targets.get(address);
+
+        HttpURLConnection connection;
+        if (target != null) {
+            connection = open(target, previous);
+        } else if (!address.contains("://")) {
+            try {
+                connection = open("https://" + address, previous);
+            } catch (IOException e) {
+                // No https on this host, e.g. the TLS handshake failed
+                connection = open("http://" + address, previous);
+            }
+        } else {
+            connection = open(address, previous);
+        }
+        targets.put(address, connection.getURL().toString());
+
+        int code = connection.getResponseCode();
+        String etag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        // Close the (empty) stream rather than disconnect() so the socket goes back to the keep-alive pool
+        closeQuietly(code >= 400 ? connection.getErrorStream() : connection.getInputStream());
+
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return false;
+        }
+        if (code != HttpURLConnection.HTTP_OK) {
+            return true;
+        }
+
+        if (etag != null || lastModified != null) {
+            validators.put(address, new Validators(etag, lastModified));
+        } else {
+            validators.remove(address);
+        }
+        if (previous == null || (etag == null && lastModified == null)) {
+            // Nothing to compare against
+            return true;
+        }
+        if (etag != null && previous.etag != null) {
+            return !etag.equals(previous.etag);
+        }
+        return lastModified == null || !lastModified.equals(previous.lastModified);
+    }
+
+    // Sends the HEAD request and follows redirects, the returned connection holds the final response
+    private static HttpURLConnection open(String target, Validators previous) throws IOException {
+        int redirectCount = 0;
+        while (true) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(target).openConnection();
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setUseCaches(false);
+            connection.setInstanceFollowRedirects(false);
+            if (previous != null) {
+                if (previous.etag != null) {
+                    connection.setRequestProperty("If-None-Match", previous.etag);
+                }
+                if (previous.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", previous.lastModified);
+                }
+            }
+
+            int code = connection.getResponseCode();
+            String location = connection.getHeaderField("Location");
+            if (!isRedirect(code) || location == null || redirectCount++ >= MAX_REDIRECTS) {
+                return connection;
+            }
+            closeQuietly(connection.getInputStream());
+            target = new URL(new URL(target), location).toString();
+        }
+    }
+
+    private static boolean isRedirect(int code) {
+        return code == HttpURLConnection.HTTP_MOVED_PERM || code == HttpURLConnection.HTTP_MOVED_TEMP
+            || code == HttpURLConnection.HTTP_SEE_OTHER || code == 307 || code == 308;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Unchanged responses, each one is a browser reload saved
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public void clear() {
+        validators.clear();
+        targets.clear();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -5,12 +5,19 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.Service;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import android.os.VibratorManager;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -22,8 +29,35 @@ import androidx.core.app.NotificationCompat;
 
 public class FloatingButtonService extends Service {
 
+    private static final String TAG = "FloatingButtonService";
     private static final String CHANNEL_ID = "AutoReloadChannel";
     private static final int NOTIFICATION_ID = 1;
+    private static final int PAGE_CHANGED_NOTIFICATION_ID = 2;
+
+    public static final String KEY_RELOAD_MODE = "reload_mode";
+    public static final String KEY_RELOAD_INTERVAL = "reload_interval_ms";
+    public static final String KEY_FIXED_DELAY = "fixed_delay";
+    public static final String KEY_PRECHECK = "precheck";
+    public static final String MODE_ADAPTIVE = "adaptive";
+    public static final String MODE_FIXED = "fixed";
+    public static final long DEFAULT_RELOAD_INTERVAL = 2500;
+    // Adaptive mode reloads anyway if no load completion is seen within this time
+    private static final long ADAPTIVE_TIMEOUT = 10000;
+
+    // What watch mode does when the page changed or the keyword showed up
+    public static final String KEY_WATCH_STOP = "watch_stop";
+    public static final String KEY_WATCH_VIBRATE = "watch_vibrate";
+    public static final String KEY_WATCH_NOTIFY = "watch_notify";
+    private static final long[] VIBRATE_PATTERN = {0, 300, 150, 300};
+
+    // Where the overlay was left, restored when it is opened again
+    public static final String KEY_OVERLAY_X = "overlay_x";
+    public static final String KEY_OVERLAY_Y = "overlay_y";
+    // Move the overlay to the nearest side of the screen when a drag ends
+    public static final String KEY_SNAP_TO_EDGE = "snap_to_edge";
+
+    // Sent by the accessibility service when it connects, resumes a checkpointed session
+    public static final String ACTION_RESUME = "com.autoreload.chrome.action.RESUME";
 
     private WindowManager windowManager;
     private View floatingView;
@@ -31,25 +65,132 @@ public class FloatingButtonService extends Service {
 
     private Button btnStart;
     private Button btnStop;
+    private Button btnMode;
+    private Button btnWatch;
+    private Button btnPrecheck;
+    private Button btnWindows;
     private TextView tvStatus;
     private View floatingDot;
 
     private boolean isReloading = false;
     private Handler reloadHandler;
     private Runnable reloadRunnable;
+    private ReloadScheduler scheduler;
+    private ConditionalGetChecker preChecker;
+    private ConditionalGetChecker.Callback preCheckCallback;
+    private Runnable adaptivePoll;
+    private ThrottlePolicy throttle;
+    private SharedPreferences prefs;
+    private String reloadMode;
+    private final ReloadSession session = new ReloadSession();
+    private SessionCheckpoint checkpoint;
+    // Inflating the overlay waits until after a resumed session is running
+    private boolean overlayPending = false;
+    // Kept so the status survives until the overlay is inflated, null leaves the layout's text
+    private CharSequence statusText;
+    private int statusColor = Color.RED;
+    private final ReloadMetrics metrics = ReloadMetrics.getInstance();
     private int initialX, initialY;
     private float initialTouchX, initialTouchY;
+    // Latest drag position, applied at most once per display frame
+    private int dragX, dragY;
+    private boolean layoutFrameScheduled = false;
+    private final Choreographer.FrameCallback layoutFrame = frameTimeNanos -> {
+        layoutFrameScheduled = false;
+        if (floatingView == null || (params.x == dragX && params.y == dragY)) return;
+        params.x = dragX;
+        params.y = dragY;
+        windowManager.updateViewLayout(floatingView, params);
+    };
 
     @Override
     public void onCreate() {
         super.onCreate();
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
         reloadHandler = new Handler(Looper.getMainLooper());
+        prefs = getSharedPreferences("AutoReloadPrefs", MODE_PRIVATE);
+        reloadMode = prefs.getString(KEY_RELOAD_MODE, MODE_ADAPTIVE);
+        checkpoint = SessionCheckpoint.getInstance(this);
+
+        // Runs on the main looper, the scheduler thread only decides when
+        reloadRunnable = () -> {
+            if (!isReloading) return;
+            if (prefs.getBoolean(KEY_PRECHECK, false)) {
+                // Ask the server first, the browser only reloads if the page changed
+                String address = ChromeAccessibilityService.getCurrentAddress();
+                if (ConditionalGetChecker.canCheck(address)) {
+                    if (preChecker.check(address, preCheckCallback)) return;
+                    // The last check is still waiting on the server, reload as if the page changed
+                    metrics.onPreCheckSkipped();
+                }
+            }
+            // Trigger reload through AccessibilityService, it drops or merges
+            // the trigger if the previous reload is still in flight
+            ChromeAccessibilityService.triggerReload();
+        };
+        scheduler = new ReloadScheduler(reloadHandler, reloadRunnable, metrics.getDrift());
+
+        preChecker = new ConditionalGetChecker(reloadHandler::post);
+        adaptivePoll = () -> scheduler.triggerNow();
+        throttle = new ThrottlePolicy(this, reloadHandler);
+        throttle.setListener((factor, cheapOnly) -> {
+            boolean recovering = factor < scheduler.getThrottleFactor();
+            scheduler.setThrottleFactor(factor);
+            ChromeAccessibilityService.setCheapStrategiesOnly(cheapOnly);
+            if (!isReloading) return;
+            if (recovering && !MODE_ADAPTIVE.equals(reloadMode)) {
+                // The next deadline was set with the longer period, restart from now
+                scheduler.triggerNow();
+            }
+            updateSessionStatus();
+        });
+        preCheckCallback = changed -> {
+            if (!isReloading) return;
+            if (changed) {
+                ChromeAccessibilityService.triggerReload();
+                return;
+            }
+            ReloadJournal.getInstance(this).record(ReloadJournal.STRATEGY_PRECHECK, -1,
+                ReloadJournal.OUTCOME_UNCHANGED, 0);
+            updateSessionStatus();
+            if (MODE_ADAPTIVE.equals(reloadMode)) {
+                // No reload means no load-complete event, so poll again after the normal interval
+                reloadHandler.removeCallbacks(adaptivePoll);
+                reloadHandler.postDelayed(adaptivePoll,
+                    throttle.apply(prefs.getLong(KEY_RELOAD_INTERVAL, DEFAULT_RELOAD_INTERVAL)));
+            }
+        };
 
         createNotificationChannel();
         startForeground(NOTIFICATION_ID, createNotification());
+    }
 
-        createFloatingView();
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (checkpoint.isActive()) {
+            if (!isReloading) {
+                // The process died while reloading, a sticky restart lands here
+                resumeReloading();
+            } else if (intent != null && ACTION_RESUME.equals(intent.getAction())) {
+                // The accessibility service reconnected and lost its session state.
+                // The scheduler is still running, only hand the session back to it.
+                ChromeAccessibilityService.setSettleDelay(
+                    prefs.getLong(ChromeAccessibilityService.KEY_SETTLE_DELAY,
+                                  ChromeAccessibilityService.DEFAULT_SETTLE_DELAY));
+                ChromeAccessibilityService.setCheapStrategiesOnly(throttle.isCheapOnly());
+                ChromeAccessibilityService.setReloading(true);
+            }
+        }
+        if (floatingView == null && !overlayPending) {
+            overlayPending = true;
+            reloadHandler.post(() -> {
+                overlayPending = false;
+                if (floatingView == null) {
+                    createFloatingView();
+                }
+            });
+        }
+        return START_STICKY;
     }
 
     @Override
@@ -61,6 +202,10 @@ public class FloatingButtonService extends Service {
     public void onDestroy() {
         super.onDestroy();
         stopReloading();
+        throttle.stop();
+        scheduler.quit();
+        preChecker.shutdown();
+        Choreographer.getInstance().removeFrameCallback(layoutFrame);
         if (floatingView != null) {
             windowManager.removeView(floatingView);
         }
@@ -109,14 +254,18 @@ public class FloatingButtonService extends Service {
         );
 
         params.gravity = Gravity.TOP | Gravity.START;
-        params.x = 100;
-        params.y = 200;
+        params.x = prefs.getInt(KEY_OVERLAY_X, 100);
+        params.y = prefs.getInt(KEY_OVERLAY_Y, 200);
 
         windowManager.addView(floatingView, params);
 
         // Initialize views
         btnStart = floatingView.findViewById(R.id.btnStart);
         btnStop = floatingView.findViewById(R.id.btnStop);
+        btnMode = floatingView.findViewById(R.id.btnMode);
+        btnWatch = floatingView.findViewById(R.id.btnWatch);
+        btnPrecheck = floatingView.findViewById(R.id.btnPrecheck);
+        btnWindows = floatingView.findViewById(R.id.btnWindows);
         tvStatus = floatingView.findViewById(R.id.tvStatus);
         floatingDot = floatingView.findViewById(R.id.floatingDot);
 
@@ -141,6 +290,41 @@ public class FloatingButtonService extends Service {
 
         btnStop.setOnClickListener(v -> stopReloading());
 
+        updateModeButton();
+        btnMode.setOnClickListener(v -> {
+            reloadMode = MODE_ADAPTIVE.equals(reloadMode) ? MODE_FIXED : MODE_ADAPTIVE;
+            prefs.edit().putString(KEY_RELOAD_MODE, reloadMode).apply();
+            updateModeButton();
+        });
+
+        updateWatchButton();
+        btnWatch.setOnClickListener(v -> {
+            boolean watch = !prefs.getBoolean(ChromeAccessibilityService.KEY_WATCH_MODE, false);
+            prefs.edit().putBoolean(ChromeAccessibilityService.KEY_WATCH_MODE, watch).apply();
+            updateWatchButton();
+        });
+
+        updatePrecheckButton();
+        btnPrecheck.setOnClickListener(v -> {
+            prefs.edit().putBoolean(KEY_PRECHECK, !prefs.getBoolean(KEY_PRECHECK, false)).apply();
+            updatePrecheckButton();
+        });
+
+        updateWindowsButton();
+        btnWindows.setOnClickListener(v -> {
+            boolean all = !prefs.getBoolean(ChromeAccessibilityService.KEY_MULTI_WINDOW, false);
+            prefs.edit().putBoolean(ChromeAccessibilityService.KEY_MULTI_WINDOW, all).apply();
+            updateWindowsButton();
+            updateWatchButton();
+        });
+
+        // A resumed session may already be running
+        updateControls();
+        if (statusText != null) {
+            tvStatus.setText(statusText);
+            tvStatus.setTextColor(statusColor);
+        }
+
         Button btnClose = floatingView.findViewById(R.id.btnClose);
         btnClose.setOnClickListener(v -> {
             stopReloading();
@@ -159,14 +343,22 @@ public class FloatingButtonService extends Service {
                         startTime = System.currentTimeMillis();
                         initialX = params.x;
                         initialY = params.y;
+                        dragX = initialX;
+                        dragY = initialY;
                         initialTouchX = event.getRawX();
                         initialTouchY = event.getRawY();
                         return true;
 
                     case MotionEvent.ACTION_MOVE:
-                        params.x = initialX + (int) (event.getRawX() - initialTouchX);
-                        params.y = initialY + (int) (event.getRawY() - initialTouchY);
-                        windowManager.updateViewLayout(floatingView, params);
+                        // Touch panels report moves faster than the display refreshes,
+                        // each layout update is a WindowManager transaction so only the
+                        // latest position is applied on the next frame
+                        dragX = initialX + (int) (event.getRawX() - initialTouchX);
+                        dragY = initialY + (int) (event.getRawY() - initialTouchY);
+                        if (!layoutFrameScheduled) {
+                            layoutFrameScheduled = true;
+                            Choreographer.getInstance().postFrameCallback(layoutFrame);
+                        }
                         return true;
 
                     case MotionEvent.ACTION_UP:
@@ -174,6 +366,8 @@ public class FloatingButtonService extends Service {
                         if (clickDuration < 200) {
                             // It's a click, let the OnClickListener handle it
                             v.performClick();
+                        } else {
+                            finishDrag();
                         }
                         return true;
                 }
@@ -182,46 +376,298 @@ public class FloatingButtonService extends Service {
         });
     }
 
+    private void finishDrag() {
+        if (layoutFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(layoutFrame);
+            layoutFrameScheduled = false;
+        }
+        params.x = dragX;
+        params.y = dragY;
+        if (prefs.getBoolean(KEY_SNAP_TO_EDGE, false)) {
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            int maxX = Math.max(0, metrics.widthPixels - floatingView.getWidth());
+            params.x = params.x + floatingView.getWidth() / 2 < metrics.widthPixels / 2 ? 0 : maxX;
+            params.y = Math.max(0, Math.min(params.y, metrics.heightPixels - floatingView.getHeight()));
+        }
+        windowManager.updateViewLayout(floatingView, params);
+
+        // apply() writes to disk in the background
+        prefs.edit()
+            .putInt(KEY_OVERLAY_X, params.x)
+            .putInt(KEY_OVERLAY_Y, params.y)
+            .apply();
+    }
+
+    private void updateModeButton() {
+        btnMode.setText(MODE_ADAPTIVE.equals(reloadMode) ? "Mode: Adaptive" : "Mode: Fixed");
+    }
+
+    private void updateWatchButton() {
+        boolean watch = prefs.getBoolean(ChromeAccessibilityService.KEY_WATCH_MODE, false);
+        if (prefs.getBoolean(ChromeAccessibilityService.KEY_MULTI_WINDOW, false)) {
+            // Watch mode is off while every window is reloaded
+            btnWatch.setText(watch ? "Watch: Not with all windows" : "Watch: Off");
+            return;
+        }
+        btnWatch.setText(watch ? "Watch: On" : "Watch: Off");
+    }
+
+    private void updatePrecheckButton() {
+        btnPrecheck.setText(prefs.getBoolean(KEY_PRECHECK, false) ? "Pre-check: On" : "Pre-check: Off");
+    }
+
+    private void updateWindowsButton() {
+        boolean all = prefs.getBoolean(ChromeAccessibilityService.KEY_MULTI_WINDOW, false);
+        btnWindows.setText(all ? "Windows: All" : "Windows: Focused");
+    }
+
     private void startReloading() {
         if (!ChromeAccessibilityService.isServiceEnabled()) {
-            tvStatus.setText("Please enable Accessibility Service!");
-            tvStatus.setTextColor(Color.RED);
+            setStatus("Please enable Accessibility Service!", Color.RED);
             return;
         }
 
+        session.start();
+        metrics.reset();
+        preChecker.resetCounters();
+        preChecker.clear();
+        int mode = MODE_ADAPTIVE.equals(reloadMode) ? SessionCheckpoint.MODE_ADAPTIVE
+            : prefs.getBoolean(KEY_FIXED_DELAY, false) ? SessionCheckpoint.MODE_FIXED_DELAY
+            : SessionCheckpoint.MODE_FIXED_RATE;
+        checkpoint.start(mode, prefs.getLong(KEY_RELOAD_INTERVAL, DEFAULT_RELOAD_INTERVAL), session);
+        beginReloading();
+    }
+
+    // Picks up the checkpointed session with its settings and counters
+    private void resumeReloading() {
+        if (!ChromeAccessibilityService.isServiceEnabled()) {
+            // It sends ACTION_RESUME once the system has bound it again
+            setStatus("Resuming...", Color.parseColor("#4CAF50"));
+            return;
+        }
+        int mode = checkpoint.getMode();
+        reloadMode = mode == SessionCheckpoint.MODE_ADAPTIVE ? MODE_ADAPTIVE : MODE_FIXED;
+        prefs.edit()
+            .putString(KEY_RELOAD_MODE, reloadMode)
+            .putBoolean(KEY_FIXED_DELAY, mode == SessionCheckpoint.MODE_FIXED_DELAY)
+            .putLong(KEY_RELOAD_INTERVAL, checkpoint.getInterval())
+            .apply();
+        checkpoint.restore(session);
+        Log.d(TAG, "Resumed session after " + session.getReloadCount() + " reloads");
+        beginReloading();
+    }
+
+    private void beginReloading() {
         isReloading = true;
-        btnStart.setEnabled(false);
-        btnStop.setEnabled(true);
-        tvStatus.setText("Reloading...");
-        tvStatus.setTextColor(Color.parseColor("#4CAF50"));
+        updateControls();
+        setStatus("Reloading...", Color.parseColor("#4CAF50"));
 
-        ChromeAccessibilityService.setReloading(true);
+        throttle.start();
+        scheduler.setThrottleFactor(throttle.getFactor());
+        ChromeAccessibilityService.setCheapStrategiesOnly(throttle.isCheapOnly());
+
+        final boolean adaptive = MODE_ADAPTIVE.equals(reloadMode);
+
+        ChromeAccessibilityService.setSettleDelay(
+            prefs.getLong(ChromeAccessibilityService.KEY_SETTLE_DELAY,
+                          ChromeAccessibilityService.DEFAULT_SETTLE_DELAY));
+        ChromeAccessibilityService.setReloadListener(new ChromeAccessibilityService.ReloadListener() {
+            @Override
+            public void onReloadStarted() {
+                session.recordReload();
+                checkpoint.update(session);
+                updateSessionStatus();
+            }
 
-        // Start reload interval (every 2.5 seconds)
-        reloadRunnable = new Runnable() {
             @Override
-            public void run() {
-                if (isReloading) {
-                    // Trigger reload through AccessibilityService
-                    ChromeAccessibilityService.triggerReload();
-                    reloadHandler.postDelayed(this, 2500);
+            public void onLoadComplete(long loadMillis) {
+                if (!isReloading) return;
+                session.recordLoadTime(loadMillis);
+                checkpoint.update(session);
+                if (adaptive) {
+                    reloadHandler.removeCallbacks(adaptivePoll);
+                    if (throttle.getFactor() > 1) {
+                        // Throttled, wait the stretched part of the interval after the load
+                        reloadHandler.postDelayed(adaptivePoll, getThrottleDelay());
+                    } else {
+                        // Next reload fires as soon as the page has settled
+                        scheduler.triggerNow();
+                    }
                 }
             }
-        };
-        reloadHandler.post(reloadRunnable);
+
+            @Override
+            public void onPauseChanged(boolean paused) {
+                if (!isReloading) return;
+                if (paused) {
+                    // No point ticking while the reloads would be dropped anyway
+                    scheduler.stop();
+                    session.pause();
+                } else {
+                    session.resume();
+                    startScheduler();
+                }
+                checkpoint.update(session);
+                updateSessionStatus();
+            }
+
+            @Override
+            public void onPageChanged(int result) {
+                if (!isReloading) return;
+                onWatchedPageChanged(result);
+            }
+        });
+        ChromeAccessibilityService.setReloading(true);
+
+        if (ChromeAccessibilityService.isPaused()) {
+            session.pause();
+            updateSessionStatus();
+        } else {
+            startScheduler();
+        }
+    }
+
+    // Starts ticking right away, which also makes a resume reload immediately
+    private void startScheduler() {
+        if (MODE_ADAPTIVE.equals(reloadMode)) {
+            // The period only matters if the load never settles
+            scheduler.start(ReloadScheduler.Mode.FIXED_DELAY, ADAPTIVE_TIMEOUT);
+        } else {
+            scheduler.start(prefs.getBoolean(KEY_FIXED_DELAY, false)
+                ? ReloadScheduler.Mode.FIXED_DELAY
+                : ReloadScheduler.Mode.FIXED_RATE,
+                prefs.getLong(KEY_RELOAD_INTERVAL, DEFAULT_RELOAD_INTERVAL));
+        }
+    }
+
+    private void onWatchedPageChanged(int result) {
+        String message = (result & PageChangeWatcher.RESULT_KEYWORD) != 0
+            ? "Keyword found on the page"
+            : "Page content changed";
+
+        if (prefs.getBoolean(KEY_WATCH_NOTIFY, true)) {
+            Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setContentTitle("Auto Reload Chrome")
+                .setContentText(message)
+                .setSmallIcon(android.R.drawable.ic_dialog_info)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setAutoCancel(true)
+                .build();
+            NotificationManager manager = getSystemService(NotificationManager.class);
+            manager.notify(PAGE_CHANGED_NOTIFICATION_ID, notification);
+        }
+        if (prefs.getBoolean(KEY_WATCH_VIBRATE, true)) {
+            Vibrator vibrator = getVibrator();
+            if (vibrator != null && vibrator.hasVibrator()) {
+                vibrator.vibrate(VibrationEffect.createWaveform(VIBRATE_PATTERN, -1));
+            }
+        }
+        if (prefs.getBoolean(KEY_WATCH_STOP, true)) {
+            stopReloading();
+            setStatus(message + " - stopped", Color.RED);
+        }
+    }
+
+    private Vibrator getVibrator() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            VibratorManager manager = (VibratorManager) getSystemService(VIBRATOR_MANAGER_SERVICE);
+            return manager != null ? manager.getDefaultVibrator() : null;
+        }
+        return (Vibrator) getSystemService(VIBRATOR_SERVICE);
+    }
+
+    private void updateSessionStatus() {
+        String status = String.format("Reloads: %d (%.1f/min)",
+            session.getReloadCount(), session.getReloadsPerMinute());
+        if (session.isPaused()) {
+            status = "Paused - browser not in front\n" + status;
+        }
+        if (preChecker.getHitCount() + preChecker.getMissCount() > 0) {
+            status += "\nPre-check: " + preChecker.getHitCount() + " unchanged, "
+                + preChecker.getMissCount() + " changed";
+        }
+        int coverage = ChromeAccessibilityService.getWatchCoverage();
+        if (coverage == PageChangeWatcher.COVERAGE_PARTIAL) {
+            status += "\nWatch: large page, first " + PageChangeWatcher.NODE_BUDGET + " nodes compared";
+        } else if (coverage == PageChangeWatcher.COVERAGE_NONE) {
+            status += "\nWatch: page too large to compare, keyword only";
+        }
+        status += "\n" + formatEffectiveInterval();
+        if (session.getPausedMillis() > 0) {
+            status += "\nPaused: " + session.getPausedMillis() / 1000 + " s";
+        }
+        if (session.getLastLoadMillis() >= 0) {
+            status += "\nLast load: " + session.getLastLoadMillis() + " ms";
+        }
+        status += "\n" + metrics.formatSummary();
+        setStatus(status, statusColor);
+    }
+
+    private void setStatus(CharSequence text, int color) {
+        statusText = text;
+        statusColor = color;
+        if (tvStatus != null) {
+            tvStatus.setText(text);
+            tvStatus.setTextColor(color);
+        }
+    }
+
+    // Buttons follow the reloading state, a no-op until the overlay is inflated
+    private void updateControls() {
+        if (floatingView == null) return;
+        btnStart.setEnabled(!isReloading);
+        btnStop.setEnabled(isReloading);
+        btnMode.setEnabled(!isReloading);
+        btnWatch.setEnabled(!isReloading);
+        btnPrecheck.setEnabled(!isReloading);
+        btnWindows.setEnabled(!isReloading);
+        updateModeButton();
+    }
+
+    // How much longer than the configured interval the throttle policy asks for
+    private long getThrottleDelay() {
+        long interval = prefs.getLong(KEY_RELOAD_INTERVAL, DEFAULT_RELOAD_INTERVAL);
+        return throttle.apply(interval) - interval;
+    }
+
+    private String formatEffectiveInterval() {
+        String interval;
+        if (MODE_ADAPTIVE.equals(reloadMode)) {
+            long extra = getThrottleDelay();
+            interval = extra > 0
+                ? String.format("Interval: after load + %.1f s", extra / 1000f)
+                : "Interval: after load";
+        } else {
+            interval = String.format("Interval: %.1f s", scheduler.getEffectivePeriod() / 1000f);
+        }
+        if (throttle.getReason() != null) {
+            interval += " (x" + throttle.getFactor() + ", " + throttle.getReason() + ")";
+        }
+        return interval;
     }
 
     private void stopReloading() {
         isReloading = false;
-        btnStart.setEnabled(true);
-        btnStop.setEnabled(false);
-        tvStatus.setText("Stopped");
-        tvStatus.setTextColor(Color.RED);
+        checkpoint.clear();
+        updateControls();
+        if (session.getReloadCount() > 0) {
+            setStatus(String.format("Stopped - %d reloads (%.1f/min)",
+                session.getReloadCount(), session.getReloadsPerMinute()), Color.RED);
+        } else {
+            setStatus("Stopped", Color.RED);
+        }
 
         ChromeAccessibilityService.setReloading(false);
+        ChromeAccessibilityService.setReloadListener(null);
 
-        if (reloadHandler != null && reloadRunnable != null) {
-            reloadHandler.removeCallbacks(reloadRunnable);
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+        if (reloadHandler != null) {
+            reloadHandler.removeCallbacks(adaptivePoll);
+        }
+        if (throttle != null) {
+            throttle.stop();
         }
     }
 }
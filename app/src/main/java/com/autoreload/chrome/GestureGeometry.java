@@ -0,0 +1,193 @@
+package com.autoreload.chrome;
+
+import android.accessibilityservice.GestureDescription;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Insets;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.os.Build;
+import android.util.DisplayMetrics;
+import android.view.WindowInsets;
+import android.view.WindowManager;
+import android.view.WindowMetrics;
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.List;
+
+/**
+ * Works out where reload gestures should land from the real screen size,
+ * system bar insets and the bounds of the browser window, instead of fixed
+ * coordinates. Gestures are built once per display configuration and
+ * browser window bounds and reused until either changes. Taps on things
+ * that only exist for a moment, like menu items, are built from the
+ * node's bounds when needed.
+ */
+public class GestureGeometry {
+
+    // Chrome-based browsers expose the toolbar menu button under this ID
+    private static final String MENU_BUTTON_ID = ":id/menu_button";
+
+    // Pull-to-refresh stroke, as fractions of the browser window height
+    private static final float SWIPE_START = 0.15f;
+    public static final float DEFAULT_SWIPE_DISTANCE = 0.45f;
+    public static final long DEFAULT_SWIPE_DURATION = 300;
+
+    // Used when the menu button node can't be found
+    private static final float MENU_BUTTON_RIGHT_DP = 24;
+    private static final float TOOLBAR_HALF_HEIGHT_DP = 28;
+
+    private final Context context;
+    private final Path path = new Path();
+
+    private final Rect windowBounds = new Rect();
+    private final Rect scratch = new Rect();
+    private int orientation = -1;
+    private boolean valid = false;
+
+    private long swipeDuration = DEFAULT_SWIPE_DURATION;
+    private float swipeDistance = DEFAULT_SWIPE_DISTANCE;
+
+    private GestureDescription swipe;
+    private GestureDescription menuTap;
+
+    public GestureGeometry(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Makes sure the cached gestures match the current screen and browser
+     * window. Cheap when nothing changed. Returns true if gestures were
+     * rebuilt. {@code root} may be null and is not recycled.
+     */
+    public boolean update(AccessibilityNodeInfo root) {
+        Configuration config = context.getResources().getConfiguration();
+        if (root != null) {
+            root.getBoundsInScreen(scratch);
+        } else {
+            scratch.setEmpty();
+        }
+        if (valid && config.orientation == orientation
+                && (scratch.isEmpty() || scratch.equals(windowBounds))) {
+            return false;
+        }
+
+        orientation = config.orientation;
+        if (!scratch.isEmpty()) {
+            windowBounds.set(scratch);
+        } else {
+            getUsableScreen(windowBounds);
+        }
+        rebuild(root);
+        valid = true;
+        return true;
+    }
+
+    // Called on configuration changes such as rotation or a new display size
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Sets the pull-to-refresh stroke length, as a fraction of the window
+     * height, and its duration. The swipe is rebuilt only if they changed.
+     */
+    public void setSwipeProfile(long durationMs, float distance) {
+        if (durationMs == swipeDuration && distance == swipeDistance) return;
+        swipeDuration = durationMs;
+        swipeDistance = distance;
+        if (valid) {
+            buildSwipe();
+        }
+    }
+
+    public GestureDescription getSwipe() {
+        ensureBuilt();
+        return swipe;
+    }
+
+    public GestureDescription getMenuTap() {
+        ensureBuilt();
+        return menuTap;
+    }
+
+    // Tap in the middle of a node's screen bounds
+    public GestureDescription getTap(Rect bounds) {
+        return buildTap(bounds.exactCenterX(), bounds.exactCenterY(), 100);
+    }
+
+    private void ensureBuilt() {
+        if (!valid) {
+            update(null);
+        }
+    }
+
+    private void rebuild(AccessibilityNodeInfo root) {
+        float density = context.getResources().getDisplayMetrics().density;
+        buildSwipe();
+
+        float menuX = windowBounds.right - MENU_BUTTON_RIGHT_DP * density;
+        float menuY = windowBounds.top + TOOLBAR_HALF_HEIGHT_DP * density;
+        if (root != null && findMenuButton(root, scratch)) {
+            menuX = scratch.exactCenterX();
+            menuY = scratch.exactCenterY();
+        }
+        menuTap = buildTap(menuX, menuY, 100);
+    }
+
+    private void buildSwipe() {
+        float x = windowBounds.centerX();
+        float top = windowBounds.top + windowBounds.height() * SWIPE_START;
+        swipe = buildStroke(x, top, x, top + windowBounds.height() * swipeDistance, swipeDuration);
+    }
+
+    private GestureDescription buildTap(float x, float y, long duration) {
+        return buildStroke(x, y, x, y, duration);
+    }
+
+    private GestureDescription buildStroke(float x1, float y1, float x2, float y2, long duration) {
+        // StrokeDescription copies the path, so one Path is reused for all of them
+        path.rewind();
+        path.moveTo(x1, y1);
+        if (x1 != x2 || y1 != y2) {
+            path.lineTo(x2, y2);
+        }
+        return new GestureDescription.Builder()
+            .addStroke(new GestureDescription.StrokeDescription(path, 0, duration))
+            .build();
+    }
+
+    private static boolean findMenuButton(AccessibilityNodeInfo root, Rect out) {
+        List<AccessibilityNodeInfo> nodes =
+            root.findAccessibilityNodeInfosByViewId(root.getPackageName() + MENU_BUTTON_ID);
+        if (nodes == null) return false;
+        boolean found = false;
+        for (AccessibilityNodeInfo node : nodes) {
+            if (!found && node.isVisibleToUser()) {
+                node.getBoundsInScreen(out);
+                found = !out.isEmpty();
+            }
+            node.recycle();
+        }
+        return found;
+    }
+
+    // Full display minus status and navigation bars
+    private void getUsableScreen(Rect out) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            WindowManager windowManager = context.getSystemService(WindowManager.class);
+            if (windowManager != null) {
+                WindowMetrics metrics = windowManager.getMaximumWindowMetrics();
+                Insets insets = metrics.getWindowInsets().getInsetsIgnoringVisibility(
+                    WindowInsets.Type.systemBars() | WindowInsets.Type.displayCutout());
+                Rect bounds = metrics.getBounds();
+                out.set(bounds.left + insets.left, bounds.top + insets.top,
+                        bounds.right - insets.right, bounds.bottom - insets.bottom);
+                return;
+            }
+        }
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        // Before API 30 there is no inset query here, assume a standard status bar
+        int statusBar = (int) (24 * displayMetrics.density);
+        out.set(0, statusBar, displayMetrics.widthPixels, displayMetrics.heightPixels);
+    }
+}
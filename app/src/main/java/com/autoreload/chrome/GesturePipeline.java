@@ -0,0 +1,176 @@
+package com.autoreload.chrome;
+
+import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.GestureDescription;
+import android.os.Handler;
+import android.view.accessibility.AccessibilityEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a sequence of gestures where each step advances as soon as the
+ * gesture has completed and, optionally, the accessibility event it is
+ * waiting for has arrived. Every step has its own timeout.
+ *
+ * Everything runs on the handler's thread, which must be the thread the
+ * accessibility events are delivered on.
+ */
+public class GesturePipeline {
+
+    public interface Dispatcher {
+        boolean dispatch(GestureDescription gesture, AccessibilityService.GestureResultCallback callback);
+    }
+
+    // Builds a step's gesture when the step runs, null fails the sequence
+    public interface GestureSource {
+        GestureDescription get();
+    }
+
+    public interface EventCondition {
+        boolean matches(AccessibilityEvent event);
+    }
+
+    public interface Listener {
+        void onFinished(boolean success);
+    }
+
+    private static class Step {
+        GestureDescription gesture;
+        final GestureSource source;
+        final EventCondition waitFor;
+        final long timeoutMs;
+
+        Step(GestureDescription gesture, GestureSource source, EventCondition waitFor, long timeoutMs) {
+            this.gesture = gesture;
+            this.source = source;
+            this.waitFor = waitFor;
+            this.timeoutMs = timeoutMs;
+        }
+    }
+
+    private final Handler handler;
+    private final Dispatcher dispatcher;
+    private final List<Step> steps = new ArrayList<>();
+
+    private Listener listener;
+    private int current = -1;
+    private boolean gestureDone;
+    private boolean conditionMet;
+    // Bumped on every start/cancel so late callbacks from an old run are ignored
+    private int generation;
+
+    private final Runnable timeout = () -> finish(false);
+
+    public GesturePipeline(Handler handler, Dispatcher dispatcher) {
+        this.handler = handler;
+        this.dispatcher = dispatcher;
+    }
+
+    public GesturePipeline addStep(GestureDescription gesture, long timeoutMs) {
+        return addStep(gesture, null, timeoutMs);
+    }
+
+    public GesturePipeline addStep(GestureDescription gesture, EventCondition waitFor, long timeoutMs) {
+        steps.add(new Step(gesture, null, waitFor, timeoutMs));
+        return this;
+    }
+
+    // For a gesture that depends on what the previous steps brought up
+    public GesturePipeline addStep(GestureSource source, long timeoutMs) {
+        steps.add(new Step(null, source, null, timeoutMs));
+        return this;
+    }
+
+    // Swaps the gesture of an existing step, e.g. after the screen geometry changed
+    public void setGesture(int index, GestureDescription gesture) {
+        steps.get(index).gesture = gesture;
+    }
+
+    public boolean isRunning() {
+        return current >= 0;
+    }
+
+    public void start(Listener listener) {
+        if (isRunning()) {
+            cancel();
+        }
+        this.listener = listener;
+        generation++;
+        runStep(0);
+    }
+
+    public void cancel() {
+        if (!isRunning()) return;
+        finish(false);
+    }
+
+    // Forwarded from the service for every accessibility event
+    public void onAccessibilityEvent(AccessibilityEvent event) {
+        if (!isRunning()) return;
+        Step step = steps.get(current);
+        if (step.waitFor != null && !conditionMet && step.waitFor.matches(event)) {
+            conditionMet = true;
+            maybeAdvance();
+        }
+    }
+
+    private void runStep(int index) {
+        if (index >= steps.size()) {
+            finish(true);
+            return;
+        }
+        current = index;
+        Step step = steps.get(index);
+        GestureDescription gesture = step.source != null ? step.source.get() : step.gesture;
+        if (gesture == null) {
+            finish(false);
+            return;
+        }
+        gestureDone = false;
+        conditionMet = step.waitFor == null;
+
+        handler.removeCallbacks(timeout);
+        handler.postDelayed(timeout, step.timeoutMs);
+
+        final int runGeneration = generation;
+        final int runStep = index;
+        boolean dispatched = dispatcher.dispatch(gesture, new AccessibilityService.GestureResultCallback() {
+            @Override
+            public void onCompleted(GestureDescription gestureDescription) {
+                handler.post(() -> {
+                    if (runGeneration != generation || runStep != current) return;
+                    gestureDone = true;
+                    maybeAdvance();
+                });
+            }
+
+            @Override
+            public void onCancelled(GestureDescription gestureDescription) {
+                handler.post(() -> {
+                    if (runGeneration != generation || runStep != current) return;
+                    finish(false);
+                });
+            }
+        });
+        if (!dispatched) {
+            finish(false);
+        }
+    }
+
+    private void maybeAdvance() {
+        if (gestureDone && conditionMet) {
+            runStep(current + 1);
+        }
+    }
+
+    private void finish(boolean success) {
+        handler.removeCallbacks(timeout);
+        current = -1;
+        generation++;
+        Listener l = listener;
+        listener = null;
+        if (l != null) {
+            l.onFinished(success);
+        }
+    }
+}
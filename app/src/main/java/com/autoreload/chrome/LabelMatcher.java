@@ -0,0 +1,258 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recognises reload controls by their text, content description or view
+ * ID in many languages. Text and content descriptions must be a whole
+ * label, ignoring case and surrounding whitespace, so links in a page that
+ * merely contain a word like "update" don't count. View IDs are matched
+ * as substrings. Labels are compiled into a case-folded trie, view IDs
+ * into a case-folded Aho-Corasick automaton, so each string is scanned
+ * once, char by char, without creating lowercase copies.
+ */
+public class LabelMatcher {
+
+    public static final int NO_MATCH = -1;
+
+    // Whole text and content description labels, matched case-insensitively
+    public static final String[] DEFAULT_LABELS = {
+        "refresh", "reload", "refresh page", "reload page", "reload this page",  // English
+        "aktualisieren", "neu laden", "seite neu laden",                        // German
+        "actualiser", "recharger", "actualiser la page", "recharger la page",   // French
+        "actualizar", "recargar", "volver a cargar", "recargar página",         // Spanish
+        "aggiorna", "ricarica", "ricarica pagina",                              // Italian
+        "atualizar", "recarregar", "recarregar página",                         // Portuguese
+        "vernieuwen", "opnieuw laden", "pagina opnieuw laden",                  // Dutch
+        "odśwież", "odśwież stronę", "yenile", "sayfayı yenile",                // Polish, Turkish
+        "обновить", "перезагрузить", "обновить страницу",                       // Russian
+        "再読み込み", "再読込", "更新", "ページを再読み込み",                         // Japanese
+        "刷新", "重新加载", "重新載入", "重新加载此页", "重新載入此頁",                 // Chinese
+        "새로고침", "페이지 새로고침",                                               // Korean
+        "रीफ़्रेश", "रीफ्रेश", "रीलोड", "पुनः लोड",                                 // Hindi
+        "تحديث", "إعادة تحميل", "إعادة تحميل الصفحة"                             // Arabic
+    };
+
+    // View ID fragments, matched case-insensitively as substrings
+    public static final String[] DEFAULT_VIEW_IDS = {
+        "refresh", "reload_button"
+    };
+
+    private final Automaton labels;
+    private final Automaton viewIds;
+    private final String[] rules;
+
+    public LabelMatcher() {
+        this(DEFAULT_LABELS, DEFAULT_VIEW_IDS);
+    }
+
+    public LabelMatcher(String[] labelPatterns, String[] viewIdPatterns) {
+        labels = new Automaton(labelPatterns, 0, false);
+        viewIds = new Automaton(viewIdPatterns, labelPatterns.length, true);
+        rules = new String[labelPatterns.length + viewIdPatterns.length];
+        for (int i = 0; i < labelPatterns.length; i++) {
+            rules[i] = "label \"" + labelPatterns[i] + "\"";
+        }
+        for (int i = 0; i < viewIdPatterns.length; i++) {
+            rules[labelPatterns.length + i] = "view id \"" + viewIdPatterns[i] + "\"";
+        }
+    }
+
+    /** Default labels plus comma-separated extra labels from settings. */
+    public static LabelMatcher withExtraLabels(String extra) {
+        if (extra == null || extra.trim().isEmpty()) {
+            return new LabelMatcher();
+        }
+        List<String> all = new ArrayList<>(Arrays.asList(DEFAULT_LABELS));
+        for (String label : extra.split(",")) {
+            if (!label.trim().isEmpty()) {
+                all.add(label.trim());
+            }
+        }
+        return new LabelMatcher(all.toArray(new String[0]), DEFAULT_VIEW_IDS);
+    }
+
+    /**
+     * Returns the index of the rule that matched the node's text, content
+     * description or view ID, or NO_MATCH.
+     */
+    public int match(AccessibilityNodeInfo node) {
+        return match(node.getText(), node.getContentDescription(), node.getViewIdResourceName());
+    }
+
+    /** Same as {@link #match(AccessibilityNodeInfo)} for plain node attributes, any may be null. */
+    public int match(CharSequence text, CharSequence contentDescription, CharSequence viewId) {
+        int rule = labels.matchWhole(text);
+        if (rule == NO_MATCH) {
+            rule = labels.matchWhole(contentDescription);
+        }
+        if (rule == NO_MATCH) {
+            rule = viewIds.find(viewId);
+        }
+        return rule;
+    }
+
+    // Human-readable description of a rule index, for logs
+    public String describe(int rule) {
+        return rule >= 0 && rule < rules.length ? rules[rule] : "none";
+    }
+
+    /**
+     * Case-folded trie. Transitions of each state are kept as a sorted slice
+     * of one char array and searched with binary search. Walking the trie
+     * matches whole strings; with failure links built it is an Aho-Corasick
+     * automaton that also finds patterns inside a string.
+     */
+    private static final class Automaton {
+        private final int[] edgeStart;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        // Rule index of the pattern ending exactly at this state
+        private final int[] terminal;
+        // Only built for substring search, null otherwise
+        private final int[] fail;
+        // Rule index reported when this state (or a suffix state) ends a pattern
+        private final int[] output;
+
+        Automaton(String[] patterns, int ruleOffset, boolean substrings) {
+            // Build the trie with maps first, then flatten it
+            List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+            List<Integer> out = new ArrayList<>();
+            trie.add(new TreeMap<>());
+            out.add(NO_MATCH);
+
+            for (int p = 0; p < patterns.length; p++) {
+                int state = 0;
+                String pattern = patterns[p];
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = fold(pattern.charAt(i));
+                    Integer next = trie.get(state).get(c);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new TreeMap<>());
+                        out.add(NO_MATCH);
+                        trie.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                if (out.get(state) == NO_MATCH) {
+                    out.set(state, ruleOffset + p);
+                }
+            }
+
+            int states = trie.size();
+            edgeStart = new int[states + 1];
+            int edges = 0;
+            for (int s = 0; s < states; s++) {
+                edgeStart[s] = edges;
+                edges += trie.get(s).size();
+            }
+            edgeStart[states] = edges;
+            edgeChars = new char[edges];
+            edgeTargets = new int[edges];
+            for (int s = 0; s < states; s++) {
+                int e = edgeStart[s];
+                for (Map.Entry<Character, Integer> entry : trie.get(s).entrySet()) {
+                    edgeChars[e] = entry.getKey();
+                    edgeTargets[e] = entry.getValue();
+                    e++;
+                }
+            }
+
+            terminal = new int[states];
+            for (int s = 0; s < states; s++) {
+                terminal[s] = out.get(s);
+            }
+            if (!substrings) {
+                fail = null;
+                output = null;
+                return;
+            }
+
+            // Breadth-first pass for failure links
+            fail = new int[states];
+            output = terminal.clone();
+            int[] queue = new int[states];
+            int head = 0;
+            int tail = 0;
+            for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+                queue[tail++] = edgeTargets[e];
+            }
+            while (head < tail) {
+                int s = queue[head++];
+                for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                    int target = edgeTargets[e];
+                    int f = fail[s];
+                    int next;
+                    while ((next = step(f, edgeChars[e])) < 0 && f != 0) {
+                        f = fail[f];
+                    }
+                    fail[target] = next >= 0 && next != target ? next : 0;
+                    if (output[target] == NO_MATCH) {
+                        output[target] = output[fail[target]];
+                    }
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        int find(CharSequence text) {
+            if (text == null) return NO_MATCH;
+            int state = 0;
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = fold(text.charAt(i));
+                int next;
+                while ((next = step(state, c)) < 0 && state != 0) {
+                    state = fail[state];
+                }
+                state = next < 0 ? 0 : next;
+                if (output[state] != NO_MATCH) {
+                    return output[state];
+                }
+            }
+            return NO_MATCH;
+        }
+
+        // Rule of the pattern equal to the whole text, surrounding whitespace ignored
+        int matchWhole(CharSequence text) {
+            if (text == null) return NO_MATCH;
+            int start = 0;
+            int end = text.length();
+            while (start < end && Character.isWhitespace(text.charAt(start))) start++;
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+            int state = 0;
+            for (int i = start; i < end; i++) {
+                state = step(state, fold(text.charAt(i)));
+                if (state < 0) return NO_MATCH;
+            }
+            return terminal[state];
+        }
+
+        private int step(int state, char c) {
+            int low = edgeStart[state];
+            int high = edgeStart[state + 1] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char m = edgeChars[mid];
+                if (m < c) {
+                    low = mid + 1;
+                } else if (m > c) {
+                    high = mid - 1;
+                } else {
+                    return edgeTargets[mid];
+                }
+            }
+            return -1;
+        }
+
+        private static char fold(char c) {
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+}
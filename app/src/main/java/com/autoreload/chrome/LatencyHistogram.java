@@ -0,0 +1,91 @@
+package com.autoreload.chrome;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram in milliseconds. Recording never allocates
+ * or locks, so it is safe to call on the reload path from any thread.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+    // Bucket upper bounds in ms, the last bucket takes everything above
+    private static final long[] BOUNDS = {
+        5, 10, 20, 30, 40, 50, 75, 100, 150, 200, 250, 300, 400, 500, 600, 700, 800, 900,
+        1000, 1250, 1500, 1750, 2000, 2500, 3000, 4000, 5000, 7500, 10000, 15000, 30000
+    };
+
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long valueMs) {
+        if (valueMs < 0) valueMs = 0;
+        counts.incrementAndGet(bucketFor(valueMs));
+        total.incrementAndGet();
+        sum.addAndGet(valueMs);
+
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while (valueMs > currentMax && !max.compareAndSet(currentMax, valueMs));
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long n = total.get();
+        return n == 0 ? 0 : sum.get() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100), or -1 when
+     * nothing has been recorded yet.
+     */
+    public long getPercentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return -1;
+
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return i < BOUNDS.length ? BOUNDS[i] : max.get();
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int bucketFor(long valueMs) {
+        int low = 0;
+        int high = BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BOUNDS[mid] < valueMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
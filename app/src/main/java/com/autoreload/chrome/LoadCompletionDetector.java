@@ -0,0 +1,88 @@
+package com.autoreload.chrome;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Decides when a page has finished loading after a reload was triggered.
+ * A load counts as finished once the browser's progress bar is gone and no
+ * content-change event has arrived for the configured settle delay.
+ */
+public class LoadCompletionDetector {
+
+    public interface ProgressProbe {
+        boolean isLoading();
+    }
+
+    public interface Listener {
+        void onLoadComplete(long loadMillis);
+    }
+
+    private final Handler handler;
+    private final ProgressProbe probe;
+    private long settleDelayMs;
+    private Listener listener;
+
+    private boolean armed = false;
+    private boolean sawContentChange = false;
+    private long armedAt;
+
+    private final Runnable settleCheck = new Runnable() {
+        @Override
+        public void run() {
+            if (!armed) return;
+            if (probe.isLoading()) {
+                // Progress bar still visible, check again after another settle window
+                handler.postDelayed(this, settleDelayMs);
+                return;
+            }
+            armed = false;
+            if (listener != null) {
+                listener.onLoadComplete(SystemClock.uptimeMillis() - armedAt - settleDelayMs);
+            }
+        }
+    };
+
+    public LoadCompletionDetector(Handler handler, ProgressProbe probe, long settleDelayMs) {
+        this.handler = handler;
+        this.probe = probe;
+        this.settleDelayMs = settleDelayMs;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setSettleDelay(long settleDelayMs) {
+        this.settleDelayMs = settleDelayMs;
+    }
+
+    public boolean isArmed() {
+        return armed;
+    }
+
+    // Called right after a reload is triggered
+    public void arm() {
+        handler.removeCallbacks(settleCheck);
+        armed = true;
+        sawContentChange = false;
+        armedAt = SystemClock.uptimeMillis();
+    }
+
+    public void disarm() {
+        armed = false;
+        handler.removeCallbacks(settleCheck);
+    }
+
+    // Called for every content or window change coming from the browser
+    public void onContentChanged() {
+        if (!armed) return;
+        sawContentChange = true;
+        handler.removeCallbacks(settleCheck);
+        handler.postDelayed(settleCheck, settleDelayMs);
+    }
+
+    public boolean hasSeenContentChange() {
+        return sawContentChange;
+    }
+}
@@ -3,22 +3,60 @@ package com.autoreload.chrome;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Build;
+import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
 import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG = "MainActivity";
     private static final int OVERLAY_PERMISSION_REQUEST_CODE = 1234;
+    private static final int EXPORT_JOURNAL_REQUEST_CODE = 1235;
+    private static final long METRICS_REFRESH_INTERVAL = 1000;
 
     private TextView statusOverlay;
     private TextView statusAccessibility;
+    private TextView statusMetrics;
     private Button btnStartService;
     private Button btnStopService;
     private Button btnOpenAccessibility;
+    private Button btnExportJournal;
+    private CheckBox checkUrlIntent;
+    private CheckBox checkSnapToEdge;
+    private EditText editSettleDelay;
+    private EditText editReloadLabels;
+    private EditText editBrowserPackages;
+    private EditText editWatchKeyword;
+    private EditText editWatchScope;
+    private SharedPreferences prefs;
+
+    private final Handler metricsHandler = new Handler(Looper.getMainLooper());
+    private final Runnable metricsRefresh = new Runnable() {
+        @Override
+        public void run() {
+            String report = ReloadMetrics.getInstance().formatReport();
+            String windows = ChromeAccessibilityService.getWindowReport();
+            statusMetrics.setText(windows != null ? report + "\n" + windows : report);
+            metricsHandler.postDelayed(this, METRICS_REFRESH_INTERVAL);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -27,9 +65,19 @@ public class MainActivity extends AppCompatActivity {
 
         statusOverlay = findViewById(R.id.statusOverlay);
         statusAccessibility = findViewById(R.id.statusAccessibility);
+        statusMetrics = findViewById(R.id.statusMetrics);
         btnStartService = findViewById(R.id.btnStartService);
         btnStopService = findViewById(R.id.btnStopService);
         btnOpenAccessibility = findViewById(R.id.btnOpenAccessibility);
+        btnExportJournal = findViewById(R.id.btnExportJournal);
+        checkUrlIntent = findViewById(R.id.checkUrlIntent);
+        checkSnapToEdge = findViewById(R.id.checkSnapToEdge);
+        editSettleDelay = findViewById(R.id.editSettleDelay);
+        editReloadLabels = findViewById(R.id.editReloadLabels);
+        editBrowserPackages = findViewById(R.id.editBrowserPackages);
+        editWatchKeyword = findViewById(R.id.editWatchKeyword);
+        editWatchScope = findViewById(R.id.editWatchScope);
+        prefs = getSharedPreferences("AutoReloadPrefs", MODE_PRIVATE);
 
         updateStatus();
 
@@ -44,12 +92,89 @@ public class MainActivity extends AppCompatActivity {
         btnStopService.setOnClickListener(v -> stopFloatingService());
 
         btnOpenAccessibility.setOnClickListener(v -> openAccessibilitySettings());
+
+        btnExportJournal.setOnClickListener(v -> {
+            // Let the user pick where the CSV goes, no storage permission needed
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/csv");
+            intent.putExtra(Intent.EXTRA_TITLE, "reload_journal.csv");
+            startActivityForResult(intent, EXPORT_JOURNAL_REQUEST_CODE);
+        });
+
+        // The services read these when reloading starts, snapping when a drag ends
+        bindCheckBox(checkUrlIntent, ChromeAccessibilityService.KEY_URL_INTENT);
+        bindCheckBox(checkSnapToEdge, FloatingButtonService.KEY_SNAP_TO_EDGE);
+        bindLong(editSettleDelay, ChromeAccessibilityService.KEY_SETTLE_DELAY);
+        bindText(editReloadLabels, ChromeAccessibilityService.KEY_RELOAD_LABELS);
+        bindText(editBrowserPackages, ChromeAccessibilityService.KEY_BROWSER_PACKAGES);
+        bindText(editWatchKeyword, ChromeAccessibilityService.KEY_WATCH_KEYWORD);
+        bindText(editWatchScope, ChromeAccessibilityService.KEY_WATCH_SCOPE);
+    }
+
+    private void bindText(EditText field, final String key) {
+        field.setText(prefs.getString(key, ""));
+        field.addTextChangedListener(new AfterTextChanged() {
+            @Override
+            public void afterTextChanged(Editable text) {
+                String value = text.toString().trim();
+                if (value.isEmpty()) {
+                    prefs.edit().remove(key).apply();
+                } else {
+                    prefs.edit().putString(key, value).apply();
+                }
+            }
+        });
+    }
+
+    private void bindCheckBox(CheckBox box, final String key) {
+        box.setChecked(prefs.getBoolean(key, false));
+        box.setOnCheckedChangeListener((v, checked) -> prefs.edit().putBoolean(key, checked).apply());
+    }
+
+    // Empty text removes the setting so the default applies again
+    private void bindLong(EditText field, final String key) {
+        if (prefs.contains(key)) {
+            field.setText(String.valueOf(prefs.getLong(key, 0)));
+        }
+        field.addTextChangedListener(new AfterTextChanged() {
+            @Override
+            public void afterTextChanged(Editable text) {
+                String value = text.toString().trim();
+                if (value.isEmpty()) {
+                    prefs.edit().remove(key).apply();
+                    return;
+                }
+                try {
+                    prefs.edit().putLong(key, Long.parseLong(value)).apply();
+                } catch (NumberFormatException e) {
+                    // Too long for a long, keep the last value
+                }
+            }
+        });
+    }
+
+    private abstract static class AfterTextChanged implements TextWatcher {
+        @Override
+        public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence text, int start, int before, int count) {
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
         updateStatus();
+        metricsHandler.post(metricsRefresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metricsHandler.removeCallbacks(metricsRefresh);
     }
 
     @Override
@@ -57,9 +182,32 @@ public class MainActivity extends AppCompatActivity {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == OVERLAY_PERMISSION_REQUEST_CODE) {
             updateStatus();
+        } else if (requestCode == EXPORT_JOURNAL_REQUEST_CODE && resultCode == RESULT_OK
+                && data != null && data.getData() != null) {
+            exportJournal(data.getData());
         }
     }
 
+    private void exportJournal(Uri uri) {
+        final ReloadJournal journal = ReloadJournal.getInstance(this);
+        // Up to a few MB of text, keep it off the UI thread
+        new Thread(() -> {
+            String message;
+            try (OutputStream stream = getContentResolver().openOutputStream(uri)) {
+                if (stream == null) throw new IOException("No output stream for " + uri);
+                Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+                int rows = journal.exportCsv(writer);
+                writer.flush();
+                message = "Exported " + rows + " journal entries";
+            } catch (IOException e) {
+                Log.w(TAG, "Journal export failed", e);
+                message = "Export failed: " + e.getMessage();
+            }
+            final String result = message;
+            runOnUiThread(() -> Toast.makeText(this, result, Toast.LENGTH_SHORT).show());
+        }, "JournalExport").start();
+    }
+
     private boolean checkOverlayPermission() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             return Settings.canDrawOverlays(this);
@@ -0,0 +1,404 @@
+package com.autoreload.chrome;
+
+import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.GestureDescription;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityWindowInfo;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps every visible browser window fresh at once, e.g. two browsers in
+ * split screen or in freeform windows. Each window found in getWindows()
+ * gets its own schedule, load detector, gesture geometry and latency
+ * histogram. Reloads go through one queue so only one gesture is on
+ * screen at a time, since a new gesture cancels the one in progress.
+ *
+ * Only the reload control click and the swipe are used here. The URL
+ * intent and the three-dot menu both act on the focused window.
+ *
+ * ReloadMetrics only follows one reload at a time, so each window times
+ * its own stages and reports the finished ones.
+ *
+ * Runs on the handler's thread, which must be the accessibility thread.
+ */
+public class MultiWindowReloader {
+
+    public interface ProgressCheck {
+        boolean isLoading(AccessibilityNodeInfo root);
+    }
+
+    public interface Listener {
+        void onReloadStarted(int windowId);
+
+        void onLoadComplete(int windowId, long loadMillis);
+    }
+
+    // Gap between two queued reloads so gestures don't run into each other
+    private static final long GESTURE_GAP = 150;
+    private static final long IN_FLIGHT_TIMEOUT = 5000;
+    // How often the window list is refreshed when no window is due
+    private static final long WINDOW_POLL = 1000;
+
+    private final class Window {
+        final int id;
+        final String packageName;
+        final GestureGeometry geometry;
+        final LoadCompletionDetector detector;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long nextDue;
+        boolean queued;
+        boolean inFlight;
+        boolean seen;
+        int reloads;
+        int failures;
+        int strategy;
+        long startedAt;
+        boolean gestureDone;
+
+        final Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                // Never settled, count it as failed and move on
+                detector.disarm();
+                failures++;
+                metrics.recordFailure();
+                journal(Window.this, ReloadJournal.OUTCOME_TIMEOUT);
+                finish(Window.this);
+            }
+        };
+
+        Window(int id, String packageName) {
+            this.id = id;
+            this.packageName = packageName;
+            geometry = new GestureGeometry(service);
+            detector = new LoadCompletionDetector(handler, this::isLoading, settleDelayMs);
+            detector.setListener(loadMillis -> {
+                latency.record(loadMillis);
+                metrics.getLoadLatency().record(loadMillis);
+                journal.record(strategy, id, ReloadJournal.OUTCOME_LOADED, loadMillis);
+                finish(this);
+                if (listener != null) {
+                    listener.onLoadComplete(id, loadMillis);
+                }
+            });
+        }
+
+        private boolean isLoading() {
+            AccessibilityNodeInfo root = findRoot(id);
+            if (root == null) return false;
+            boolean loading = progressCheck.isLoading(root);
+            root.recycle();
+            return loading;
+        }
+    }
+
+    private final AccessibilityService service;
+    private final Handler handler;
+    private final RefreshButtonLocator locator;
+    private final ProgressCheck progressCheck;
+    private final ReloadMetrics metrics = ReloadMetrics.getInstance();
+    private final ReloadJournal journal;
+
+    private final Map<Integer, Window> windows = new HashMap<>();
+    private final ArrayDeque<Window> queue = new ArrayDeque<>();
+    private Listener listener;
+    private long settleDelayMs;
+
+    private boolean running = false;
+    private long periodMs;
+    private boolean gestureBusy = false;
+    private long laneFreeAt;
+
+    private final Runnable tick = this::tick;
+    private final Runnable pump = this::pumpQueue;
+
+    public MultiWindowReloader(AccessibilityService service, Handler handler,
+                               RefreshButtonLocator locator, ProgressCheck progressCheck,
+                               long settleDelayMs) {
+        this.service = service;
+        this.handler = handler;
+        this.locator = locator;
+        this.progressCheck = progressCheck;
+        this.settleDelayMs = settleDelayMs;
+        journal = ReloadJournal.getInstance(service);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setSettleDelay(long settleDelayMs) {
+        this.settleDelayMs = settleDelayMs;
+        for (Window window : windows.values()) {
+            window.detector.setSettleDelay(settleDelayMs);
+        }
+    }
+
+    /**
+     * Starts reloading every browser window. Each window reloads again
+     * {@code periodMs} after its previous load settled, or right away when
+     * the period is 0.
+     */
+    public void start(long periodMs) {
+        this.periodMs = periodMs;
+        running = true;
+        refreshWindows();
+        // Stagger the first round so the windows don't all queue at once
+        long now = SystemClock.uptimeMillis();
+        int i = 0;
+        for (Window window : windows.values()) {
+            window.nextDue = now + GESTURE_GAP * i++;
+        }
+        handler.removeCallbacks(tick);
+        handler.post(tick);
+    }
+
+    public void stop() {
+        running = false;
+        handler.removeCallbacks(tick);
+        handler.removeCallbacks(pump);
+        queue.clear();
+        gestureBusy = false;
+        for (Window window : windows.values()) {
+            window.detector.disarm();
+            handler.removeCallbacks(window.timeout);
+            window.queued = false;
+            window.inFlight = false;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Reloads whatever windows are due now instead of waiting for the next tick
+    public void triggerDue() {
+        if (!running) return;
+        handler.removeCallbacks(tick);
+        tick();
+    }
+
+    // Forwarded for content changes from browser windows
+    public void onContentChanged(int windowId) {
+        Window window = windows.get(windowId);
+        if (window == null || !window.detector.isArmed()) return;
+        if (!window.detector.hasSeenContentChange()) {
+            metrics.getFirstChangeLatency().record(SystemClock.uptimeMillis() - window.startedAt);
+        }
+        window.detector.onContentChanged();
+    }
+
+    // One line per window with its reload count and load latency
+    public String formatReport() {
+        if (windows.isEmpty()) return "No browser windows";
+        StringBuilder sb = new StringBuilder();
+        for (Window window : windows.values()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US,
+                "Window %d (%s): %d reloads, %d failed, load p50 %d / p95 %d ms",
+                window.id, window.packageName, window.reloads, window.failures,
+                window.latency.getPercentile(50), window.latency.getPercentile(95)));
+        }
+        return sb.toString();
+    }
+
+    private void tick() {
+        if (!running) return;
+        refreshWindows();
+
+        long now = SystemClock.uptimeMillis();
+        long nextTick = now + WINDOW_POLL;
+        for (Window window : windows.values()) {
+            if (window.queued || window.inFlight) continue;
+            if (window.nextDue <= now) {
+                window.queued = true;
+                queue.add(window);
+            } else {
+                nextTick = Math.min(nextTick, window.nextDue);
+            }
+        }
+        pumpQueue();
+        handler.postAtTime(tick, nextTick);
+    }
+
+    private void pumpQueue() {
+        if (!running || gestureBusy || queue.isEmpty()) return;
+        long now = SystemClock.uptimeMillis();
+        if (now < laneFreeAt) {
+            handler.removeCallbacks(pump);
+            handler.postAtTime(pump, laneFreeAt);
+            return;
+        }
+        Window window = queue.poll();
+        window.queued = false;
+        if (!reload(window)) {
+            // Nothing to act on in that window right now, try it again next round
+            window.nextDue = now + Math.max(periodMs, WINDOW_POLL);
+            laneFreeAt = now;
+            pumpQueue();
+        }
+    }
+
+    private boolean reload(final Window window) {
+        AccessibilityNodeInfo root = findRoot(window.id);
+        if (root == null) return false;
+        try {
+            window.geometry.update(root);
+
+            AccessibilityNodeInfo button = locator.locate(root);
+            if (button != null) {
+                boolean clicked = button.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+                button.recycle();
+                if (clicked) {
+                    onStarted(window, ReloadJournal.STRATEGY_NODE_CLICK);
+                    onGestureDone(window);
+                    laneFreeAt = SystemClock.uptimeMillis() + GESTURE_GAP;
+                    handler.post(pump);
+                    return true;
+                }
+            }
+        } finally {
+            root.recycle();
+        }
+
+        gestureBusy = true;
+        boolean dispatched = service.dispatchGesture(window.geometry.getSwipe(),
+            new AccessibilityService.GestureResultCallback() {
+                @Override
+                public void onCompleted(GestureDescription gestureDescription) {
+                    if (window.inFlight) {
+                        onGestureDone(window);
+                    }
+                    releaseLane();
+                }
+
+                @Override
+                public void onCancelled(GestureDescription gestureDescription) {
+                    metrics.onGestureCancelled();
+                    if (window.inFlight) {
+                        window.detector.disarm();
+                        window.failures++;
+                        metrics.recordFailure();
+                        journal(window, ReloadJournal.OUTCOME_FAILED);
+                        finish(window);
+                    }
+                    releaseLane();
+                }
+            }, handler);
+        if (!dispatched) {
+            gestureBusy = false;
+            return false;
+        }
+        onStarted(window, ReloadJournal.STRATEGY_SWIPE);
+        return true;
+    }
+
+    private void onStarted(Window window, int strategy) {
+        window.inFlight = true;
+        window.strategy = strategy;
+        window.startedAt = SystemClock.uptimeMillis();
+        window.gestureDone = false;
+        window.reloads++;
+        metrics.recordTrigger();
+        window.detector.arm();
+        handler.removeCallbacks(window.timeout);
+        handler.postDelayed(window.timeout, IN_FLIGHT_TIMEOUT);
+        if (listener != null) {
+            listener.onReloadStarted(window.id);
+        }
+    }
+
+    private void onGestureDone(Window window) {
+        if (window.gestureDone) return;
+        window.gestureDone = true;
+        metrics.getGestureLatency().record(SystemClock.uptimeMillis() - window.startedAt);
+    }
+
+    private void journal(Window window, int outcome) {
+        journal.record(window.strategy, window.id, outcome, SystemClock.uptimeMillis() - window.startedAt);
+    }
+
+    private void finish(Window window) {
+        handler.removeCallbacks(window.timeout);
+        window.inFlight = false;
+        window.nextDue = SystemClock.uptimeMillis() + periodMs;
+        if (running) {
+            // Let the tick work out which window is due next
+            handler.removeCallbacks(tick);
+            handler.post(tick);
+        }
+    }
+
+    private void releaseLane() {
+        gestureBusy = false;
+        laneFreeAt = SystemClock.uptimeMillis() + GESTURE_GAP;
+        pumpQueue();
+    }
+
+    // Adds windows that appeared and forgets the ones that closed
+    private void refreshWindows() {
+        for (Window window : windows.values()) {
+            window.seen = false;
+        }
+        List<AccessibilityWindowInfo> infos = service.getWindows();
+        if (infos != null) {
+            for (AccessibilityWindowInfo info : infos) {
+                if (info.getType() == AccessibilityWindowInfo.TYPE_APPLICATION) {
+                    track(info);
+                }
+                info.recycle();
+            }
+        }
+        Iterator<Window> it = windows.values().iterator();
+        while (it.hasNext()) {
+            Window window = it.next();
+            if (!window.seen) {
+                window.detector.disarm();
+                handler.removeCallbacks(window.timeout);
+                queue.remove(window);
+                it.remove();
+            }
+        }
+    }
+
+    private void track(AccessibilityWindowInfo info) {
+        Window window = windows.get(info.getId());
+        if (window != null) {
+            window.seen = true;
+            return;
+        }
+        AccessibilityNodeInfo root = info.getRoot();
+        if (root == null) return;
+        CharSequence packageName = root.getPackageName();
+        root.recycle();
+        if (packageName == null
+                || service.getPackageName().contentEquals(packageName)
+                || !ChromeAccessibilityService.isBrowserPackage(packageName)) {
+            return;
+        }
+        window = new Window(info.getId(), packageName.toString());
+        window.seen = true;
+        window.nextDue = SystemClock.uptimeMillis();
+        windows.put(window.id, window);
+    }
+
+    private AccessibilityNodeInfo findRoot(int windowId) {
+        List<AccessibilityWindowInfo> infos = service.getWindows();
+        if (infos == null) return null;
+        AccessibilityNodeInfo root = null;
+        for (AccessibilityWindowInfo info : infos) {
+            if (root == null && info.getId() == windowId) {
+                root = info.getRoot();
+            }
+            info.recycle();
+        }
+        return root;
+    }
+}
@@ -0,0 +1,182 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * Depth-first walk over a node tree without recursion. The
+ * stack is an array kept between calls, every node obtained during a walk
+ * is recycled before it returns, and each walk stops early when it runs
+ * over its depth, node or time budget so a huge web page can't stall the
+ * accessibility thread.
+ *
+ * Works on any NodeTree, normally the accessibility tree. One instance per
+ * feature, used from a single thread. A visitor must not start another
+ * walk on the same instance.
+ */
+public class NodeTraversal<N> {
+
+    public interface Visitor<N> {
+        /**
+         * Called for every node in pre-order, starting with the root at
+         * depth 0. Returns one of CONTINUE, SKIP_CHILDREN, STOP or KEEP.
+         */
+        int visit(N node, int depth);
+    }
+
+    // Visitor actions
+    public static final int CONTINUE = 0;
+    public static final int SKIP_CHILDREN = 1;
+    public static final int STOP = 2;
+    // Stop and hand the current node to the caller instead of recycling it
+    public static final int KEEP = 3;
+
+    // Walk results
+    public static final int RESULT_COMPLETE = 0;
+    public static final int RESULT_STOPPED = 1;
+    public static final int RESULT_BUDGET_EXHAUSTED = 2;
+
+    // Checking the clock on every node costs more than the nodes themselves
+    private static final int CLOCK_CHECK_INTERVAL = 32;
+
+    private final NodeTree<N> tree;
+    private final Clock clock;
+    private final int maxDepth;
+    private final int maxNodes;
+    private final long timeBudgetMs;
+
+    private Object[] stack;
+    private int[] nextChild;
+    private int top;
+
+    private int visited;
+    private N kept;
+
+    public NodeTraversal(NodeTree<N> tree, Clock clock, int maxDepth, int maxNodes, long timeBudgetMs) {
+        this.tree = tree;
+        this.clock = clock;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.timeBudgetMs = timeBudgetMs;
+        int capacity = Math.min(maxDepth + 1, 32);
+        stack = new Object[capacity];
+        nextChild = new int[capacity];
+    }
+
+    /** A walk over the accessibility tree, timed by uptime. */
+    public static NodeTraversal<AccessibilityNodeInfo> overAccessibility(int maxDepth, int maxNodes,
+                                                                       long timeBudgetMs) {
+        return new NodeTraversal<>(NodeTree.ACCESSIBILITY, Clock.UPTIME, maxDepth, maxNodes, timeBudgetMs);
+    }
+
+    /**
+     * Walks the tree under {@code root}, which is not recycled. Returns
+     * RESULT_COMPLETE when every node within the depth limit was visited,
+     * RESULT_STOPPED when the visitor asked to stop, or
+     * RESULT_BUDGET_EXHAUSTED when the node or time budget ran out and only
+     * part of the tree was seen.
+     */
+    public int walk(N root, Visitor<N> visitor) {
+        visited = 1;
+        kept = null;
+        top = 0;
+
+        int action = visitor.visit(root, 0);
+        if (action == STOP || action == KEEP) return RESULT_STOPPED;
+        if (action == SKIP_CHILDREN || maxDepth <= 0) return RESULT_COMPLETE;
+
+        long deadline = clock.uptimeMillis() + timeBudgetMs;
+        push(root);
+        while (top > 0) {
+            int frame = top - 1;
+            @SuppressWarnings("unchecked")
+            N node = (N) stack[frame];
+            if (nextChild[frame] >= tree.getChildCount(node)) {
+                pop();
+                continue;
+            }
+            N child = tree.getChild(node, nextChild[frame]++);
+            if (child == null) continue;
+
+            if (visited >= maxNodes
+                    || (visited % CLOCK_CHECK_INTERVAL == 0 && clock.uptimeMillis() > deadline)) {
+                tree.recycle(child);
+                unwind();
+                return RESULT_BUDGET_EXHAUSTED;
+            }
+
+            visited++;
+            action = visitor.visit(child, frame + 1);
+            if (action == KEEP) {
+                kept = child;
+                unwind();
+                return RESULT_STOPPED;
+            }
+            if (action == STOP) {
+                tree.recycle(child);
+                unwind();
+                return RESULT_STOPPED;
+            }
+            if (action == SKIP_CHILDREN || frame + 1 >= maxDepth) {
+                tree.recycle(child);
+            } else {
+                push(child);
+            }
+        }
+        return RESULT_COMPLETE;
+    }
+
+    /**
+     * The node a visitor returned KEEP for in the last walk, or null. The
+     * caller owns it and must recycle it.
+     */
+    public N takeKept() {
+        N node = kept;
+        kept = null;
+        return node;
+    }
+
+    /**
+     * Child index taken at {@code level} on the way to the node being
+     * visited, for levels 0 to depth - 1. Only valid inside a visit.
+     */
+    public int getChildIndex(int level) {
+        return nextChild[level] - 1;
+    }
+
+    // Nodes visited by the last walk, including the root
+    public int getVisitedCount() {
+        return visited;
+    }
+
+    private void push(N node) {
+        if (top == stack.length) {
+            int capacity = stack.length * 2;
+            Object[] grownStack = new Object[capacity];
+            int[] grownNext = new int[capacity];
+            System.arraycopy(stack, 0, grownStack, 0, top);
+            System.arraycopy(nextChild, 0, grownNext, 0, top);
+            stack = grownStack;
+            nextChild = grownNext;
+        }
+        stack[top] = node;
+        nextChild[top] = 0;
+        top++;
+    }
+
+    private void pop() {
+        top--;
+        // Frame 0 is the caller's root
+        if (top > 0) {
+            @SuppressWarnings("unchecked")
+            N node = (N) stack[top];
+            tree.recycle(node);
+        }
+        stack[top] = null;
+    }
+
+    private void unwind() {
+        while (top > 0) {
+            pop();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * The parts of a node tree that NodeTraversal needs. The accessibility
+ * tree is the real one, synthetic trees can stand in for it off-device.
+ */
+public interface NodeTree<N> {
+
+    NodeTree<AccessibilityNodeInfo> ACCESSIBILITY = new NodeTree<AccessibilityNodeInfo>() {
+        @Override
+        public int getChildCount(AccessibilityNodeInfo node) {
+            return node.getChildCount();
+        }
+
+        @Override
+        public AccessibilityNodeInfo getChild(AccessibilityNodeInfo node, int index) {
+            return node.getChild(index);
+        }
+
+        @Override
+        public void recycle(AccessibilityNodeInfo node) {
+            node.recycle();
+        }
+    };
+
+    int getChildCount(N node);
+
+    // May return null, like AccessibilityNodeInfo.getChild
+    N getChild(N node, int index);
+
+    // Releases a node obtained through getChild
+    void recycle(N node);
+}
@@ -0,0 +1,163 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.List;
+
+/**
+ * Detects when a watched page actually changed between reloads. After each
+ * settled load it streams the text of every node (optionally only under
+ * one view ID) through a 64-bit FNV-1a hash and compares it with the
+ * previous cycle. It can also look for a keyword in the same pass.
+ * Neither the hash nor the keyword search create Strings per node.
+ *
+ * The walk has a node and time budget, since it runs on the main thread.
+ * A page with more nodes than the budget has only its first nodes hashed,
+ * which is the same part of the page every time, so those hashes are
+ * still compared. A page that runs out of time is only searched for the
+ * keyword. getCoverage() tells which case the last check was.
+ *
+ * Not used in multi-window mode, where there is no single page to compare.
+ */
+public class PageChangeWatcher {
+
+    public static final int RESULT_NONE = 0;
+    public static final int RESULT_CHANGED = 1;
+    public static final int RESULT_KEYWORD = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MAX_DEPTH = 128;
+    // Runs on the main thread after every settled load, so it gets about two
+    // frames. A scope keeps large pages within the budget.
+    public static final int NODE_BUDGET = 3000;
+    private static final long TIME_BUDGET = 30;
+
+    // The whole page was compared
+    public static final int COVERAGE_FULL = 0;
+    // Only the first NODE_BUDGET nodes were compared
+    public static final int COVERAGE_PARTIAL = 1;
+    // Ran out of time, only the keyword was looked for
+    public static final int COVERAGE_NONE = 2;
+
+    private String scopeViewId;
+    private char[] keyword;
+
+    private boolean hasBaseline = false;
+    private long lastHash;
+    private boolean keywordWasFound = false;
+    private int coverage = COVERAGE_FULL;
+
+    // Per-pass state, kept in fields so the traversal doesn't allocate
+    private long hash;
+    private boolean keywordFound;
+
+    private final NodeTraversal<AccessibilityNodeInfo> traversal =
+        NodeTraversal.overAccessibility(MAX_DEPTH, NODE_BUDGET, TIME_BUDGET);
+    private final NodeTraversal.Visitor<AccessibilityNodeInfo> hashVisitor = (node, depth) -> {
+        addText(node.getText());
+        addText(node.getContentDescription());
+        return NodeTraversal.CONTINUE;
+    };
+
+    // View ID of the subtree to watch, or null for the whole window
+    public void setScope(String viewId) {
+        scopeViewId = viewId == null || viewId.isEmpty() ? null : viewId;
+        reset();
+    }
+
+    public void setKeyword(String text) {
+        keyword = text == null || text.isEmpty() ? null : text.toLowerCase().toCharArray();
+        reset();
+    }
+
+    // Forget the previous page, the next check only records a baseline
+    public void reset() {
+        hasBaseline = false;
+        keywordWasFound = false;
+        coverage = COVERAGE_FULL;
+    }
+
+    /**
+     * Hashes the page under {@code root} and returns a combination of
+     * RESULT_CHANGED (text differs from the previous check) and
+     * RESULT_KEYWORD (keyword appeared since the previous check).
+     */
+    public int check(AccessibilityNodeInfo root) {
+        hash = FNV_OFFSET;
+        keywordFound = false;
+        int newCoverage = COVERAGE_FULL;
+
+        if (scopeViewId != null) {
+            List<AccessibilityNodeInfo> scopes = root.findAccessibilityNodeInfosByViewId(scopeViewId);
+            if (scopes != null) {
+                for (AccessibilityNodeInfo scope : scopes) {
+                    if (newCoverage == COVERAGE_FULL) {
+                        newCoverage = walk(scope);
+                    }
+                    scope.recycle();
+                }
+            }
+        } else {
+            newCoverage = walk(root);
+        }
+
+        // Hashes only compare when both cover the same part of the page
+        boolean comparable = newCoverage != COVERAGE_NONE && newCoverage == coverage;
+        int result = RESULT_NONE;
+        if (comparable && hasBaseline && hash != lastHash) {
+            result |= RESULT_CHANGED;
+        }
+        if (keywordFound && !keywordWasFound) {
+            result |= RESULT_KEYWORD;
+        }
+        if (newCoverage != COVERAGE_NONE) {
+            hasBaseline = true;
+            lastHash = hash;
+        }
+        coverage = newCoverage;
+        keywordWasFound = keywordFound;
+        return result;
+    }
+
+    // How much of the page the last check compared, one of the COVERAGE values
+    public int getCoverage() {
+        return coverage;
+    }
+
+    private int walk(AccessibilityNodeInfo root) {
+        int result = traversal.walk(root, hashVisitor);
+        if (result == NodeTraversal.RESULT_COMPLETE) return COVERAGE_FULL;
+        // Stopped by the node budget, so the same leading nodes were hashed
+        return traversal.getVisitedCount() >= NODE_BUDGET ? COVERAGE_PARTIAL : COVERAGE_NONE;
+    }
+
+    private void addText(CharSequence text) {
+        if (text == null) return;
+        int length = text.length();
+        long h = hash;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            h = (h ^ (c & 0xff)) * FNV_PRIME;
+            h = (h ^ (c >>> 8)) * FNV_PRIME;
+        }
+        // Separator so "ab"+"c" and "a"+"bc" hash differently
+        hash = (h ^ 0xff) * FNV_PRIME;
+
+        if (keyword != null && !keywordFound) {
+            keywordFound = containsIgnoreCase(text, keyword);
+        }
+    }
+
+    private static boolean containsIgnoreCase(CharSequence text, char[] needle) {
+        int last = text.length() - needle.length;
+        for (int start = 0; start <= last; start++) {
+            int i = 0;
+            while (i < needle.length
+                    && Character.toLowerCase(text.charAt(start + i)) == needle[i]) {
+                i++;
+            }
+            if (i == needle.length) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,164 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.List;
+
+/**
+ * Finds the browser's reload control and remembers where it was found, so
+ * later cycles can resolve it by view ID or tree path instead of scanning
+ * the whole node tree again.
+ */
+public class RefreshButtonLocator {
+
+    private static final int MAX_PATH_DEPTH = 64;
+    private static final int SCAN_NODE_BUDGET = 3000;
+    private static final long SCAN_TIME_BUDGET = 40;
+    // A window without a control is scanned again after this many lookups, the
+    // control may show up later without a window state change, e.g. once a page loaded
+    private static final int MISSING_RESCAN_LOOKUPS = 10;
+
+    private static class Entry {
+        String viewId;
+        int[] path;
+        // True when the last full scan found nothing, so we don't rescan every cycle
+        boolean missing;
+        int missingLookups;
+    }
+
+    private LabelMatcher matcher;
+    private final WindowCache<Entry> cache = new WindowCache<>();
+    private final NodeTraversal<AccessibilityNodeInfo> traversal =
+        NodeTraversal.overAccessibility(MAX_PATH_DEPTH, SCAN_NODE_BUDGET, SCAN_TIME_BUDGET);
+    private final NodeTraversal.Visitor<AccessibilityNodeInfo> scanVisitor = this::visitForScan;
+    // Entry filled in by the scan in progress
+    private Entry scanEntry;
+
+    private int scans;
+    private int lastRule = LabelMatcher.NO_MATCH;
+
+    public RefreshButtonLocator(LabelMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Returns the clickable reload control in the given window, or null.
+     * The caller owns the returned node and must recycle it.
+     */
+    public AccessibilityNodeInfo locate(AccessibilityNodeInfo root) {
+        Entry entry = cache.get(root);
+
+        if (entry != null && entry.missing) {
+            if (++entry.missingLookups < MISSING_RESCAN_LOOKUPS) return null;
+            cache.remove(root);
+            entry = null;
+        }
+        if (entry != null) {
+            AccessibilityNodeInfo node = resolve(root, entry);
+            if (node != null) {
+                return node;
+            }
+            // Layout moved on, the entry no longer points at the control
+            cache.remove(root);
+        }
+
+        scans++;
+        entry = new Entry();
+        scanEntry = entry;
+        int result = traversal.walk(root, scanVisitor);
+        scanEntry = null;
+        AccessibilityNodeInfo node = traversal.takeKept();
+        if (node == null && result == NodeTraversal.RESULT_BUDGET_EXHAUSTED) {
+            // Only part of the tree was seen, try again next cycle
+            return null;
+        }
+        if (node == null) {
+            entry.missing = true;
+        }
+        cache.put(root, entry);
+        return node;
+    }
+
+    // New labels can match a different control, so every cached location is dropped
+    public void setMatcher(LabelMatcher matcher) {
+        this.matcher = matcher;
+        cache.clear();
+    }
+
+    // Drops cached locations for a package whose window changed
+    public void invalidate(CharSequence packageName) {
+        cache.invalidate(packageName);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public int getScans() {
+        return scans;
+    }
+
+    // Matcher rule that identified the control on the last full scan
+    public String getLastRule() {
+        return matcher.describe(lastRule);
+    }
+
+    private AccessibilityNodeInfo resolve(AccessibilityNodeInfo root, Entry entry) {
+        if (entry.viewId != null) {
+            List<AccessibilityNodeInfo> nodes = root.findAccessibilityNodeInfosByViewId(entry.viewId);
+            AccessibilityNodeInfo found = null;
+            if (nodes != null) {
+                for (AccessibilityNodeInfo node : nodes) {
+                    if (found == null && node.isClickable() && isRefreshButton(node)) {
+                        found = node;
+                    } else {
+                        node.recycle();
+                    }
+                }
+            }
+            return found;
+        }
+
+        // No view ID, walk the recorded child indices
+        AccessibilityNodeInfo current = root;
+        for (int index : entry.path) {
+            AccessibilityNodeInfo child = index < current.getChildCount() ? current.getChild(index) : null;
+            if (current != root) {
+                current.recycle();
+            }
+            if (child == null) return null;
+            current = child;
+        }
+        if (current != root && current.isClickable() && isRefreshButton(current)) {
+            return current;
+        }
+        if (current != root) {
+            current.recycle();
+        }
+        return null;
+    }
+
+    private int visitForScan(AccessibilityNodeInfo node, int depth) {
+        // The window root itself is never the control
+        if (depth == 0) return NodeTraversal.CONTINUE;
+        // Links in the page can carry the same words, only the browser's own views count
+        CharSequence className = node.getClassName();
+        if (className != null && "android.webkit.WebView".contentEquals(className)) {
+            return NodeTraversal.SKIP_CHILDREN;
+        }
+        if (!node.isClickable()) return NodeTraversal.CONTINUE;
+        int rule = matcher.match(node);
+        if (rule == LabelMatcher.NO_MATCH) return NodeTraversal.CONTINUE;
+
+        lastRule = rule;
+        scanEntry.viewId = node.getViewIdResourceName();
+        scanEntry.path = new int[depth];
+        for (int level = 0; level < depth; level++) {
+            scanEntry.path[level] = traversal.getChildIndex(level);
+        }
+        return NodeTraversal.KEEP;
+    }
+
+    private boolean isRefreshButton(AccessibilityNodeInfo node) {
+        return matcher.match(node) != LabelMatcher.NO_MATCH;
+    }
+}
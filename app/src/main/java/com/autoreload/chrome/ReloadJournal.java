@@ -0,0 +1,175 @@
+package com.autoreload.chrome;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Append-only log of every reload outcome, for auditing long unattended
+ * sessions. Records have a fixed size and go into a memory-mapped ring
+ * file in app storage, so appending is a few puts into the mapping with
+ * no allocation and no write call. The kernel writes the pages back, so
+ * the journal survives the process being killed. When the ring is full
+ * the oldest records are overwritten.
+ */
+public class ReloadJournal {
+
+    private static final String TAG = "ReloadJournal";
+    private static final String FILE_NAME = "reload_journal.bin";
+
+    private static final int MAGIC = 0x524a4e4c; // "RJNL"
+    private static final int VERSION = 1;
+    private static final int CAPACITY = 16384;
+
+    // Header: magic, version, capacity, then the total number of records ever written
+    private static final int HEADER_SIZE = 32;
+    private static final int OFFSET_TOTAL = 12;
+
+    // Record: time (8), window id (4), latency (4), strategy (2), outcome (1), padding
+    private static final int RECORD_SIZE = 24;
+    private static final int FIELD_WINDOW = 8;
+    private static final int FIELD_LATENCY = 12;
+    private static final int FIELD_STRATEGY = 16;
+    private static final int FIELD_OUTCOME = 18;
+
+    public static final int STRATEGY_UNKNOWN = 0;
+    public static final int STRATEGY_NODE_CLICK = 1;
+    public static final int STRATEGY_URL_INTENT = 2;
+    public static final int STRATEGY_SWIPE = 3;
+    public static final int STRATEGY_MENU = 4;
+    public static final int STRATEGY_PRECHECK = 5;
+    private static final String[] STRATEGY_NAMES = {
+        "unknown", "node_click", "url_intent", "swipe", "menu", "precheck"
+    };
+
+    // Load settled
+    public static final int OUTCOME_LOADED = 0;
+    // Gesture or menu sequence didn't go through
+    public static final int OUTCOME_FAILED = 1;
+    // Started but never settled
+    public static final int OUTCOME_TIMEOUT = 2;
+    // Pre-check found the page unchanged, no reload
+    public static final int OUTCOME_UNCHANGED = 3;
+    private static final String[] OUTCOME_NAMES = {
+        "loaded", "failed", "timeout", "unchanged"
+    };
+
+    private static ReloadJournal instance;
+
+    // Null if the file couldn't be mapped, the journal then drops records
+    private final MappedByteBuffer buffer;
+    private long total;
+
+    public static synchronized ReloadJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReloadJournal(new File(context.getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    private ReloadJournal(File file) {
+        MappedByteBuffer mapped = null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the channel is closed
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) CAPACITY * RECORD_SIZE);
+        } catch (IOException e) {
+            Log.w(TAG, "Journal unavailable", e);
+        }
+        buffer = mapped;
+        if (buffer == null) return;
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && buffer.getInt(8) == CAPACITY) {
+            total = buffer.getLong(OFFSET_TOTAL);
+        } else {
+            // New file or a different layout, start over
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, CAPACITY);
+            buffer.putLong(OFFSET_TOTAL, 0);
+            total = 0;
+        }
+    }
+
+    /** Appends one record. Doesn't allocate, safe to call on the reload path. */
+    public synchronized void record(int strategy, int windowId, int outcome, long latencyMs) {
+        if (buffer == null) return;
+        int at = HEADER_SIZE + (int) (total % CAPACITY) * RECORD_SIZE;
+        buffer.putLong(at, System.currentTimeMillis());
+        buffer.putInt(at + FIELD_WINDOW, windowId);
+        buffer.putInt(at + FIELD_LATENCY, (int) Math.min(Integer.MAX_VALUE, Math.max(0, latencyMs)));
+        buffer.putShort(at + FIELD_STRATEGY, (short) strategy);
+        buffer.put(at + FIELD_OUTCOME, (byte) outcome);
+        // Count goes last so a record is only visible once it is complete
+        total++;
+        buffer.putLong(OFFSET_TOTAL, total);
+    }
+
+    public static int strategyCode(String name) {
+        for (int i = 0; i < STRATEGY_NAMES.length; i++) {
+            if (STRATEGY_NAMES[i].equals(name)) return i;
+        }
+        return STRATEGY_UNKNOWN;
+    }
+
+    // Records currently held, at most the ring capacity
+    public synchronized int size() {
+        return (int) Math.min(total, CAPACITY);
+    }
+
+    /**
+     * Writes all held records oldest first as CSV, including the gap to the
+     * previous record. Returns the number of rows written.
+     */
+    public int exportCsv(Writer out) throws IOException {
+        byte[] snapshot;
+        long first;
+        int count;
+        synchronized (this) {
+            if (buffer == null) return 0;
+            count = size();
+            first = total - count;
+            // Copy under the lock so the reload path isn't held up by the writer
+            snapshot = new byte[CAPACITY * RECORD_SIZE];
+            ByteBuffer view = buffer.duplicate();
+            view.position(HEADER_SIZE);
+            view.get(snapshot);
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(snapshot);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        out.write("time,epoch_ms,gap_ms,strategy,window,outcome,latency_ms\n");
+        long previous = -1;
+        for (int i = 0; i < count; i++) {
+            int at = (int) ((first + i) % CAPACITY) * RECORD_SIZE;
+            long time = records.getLong(at);
+            int strategy = records.getShort(at + FIELD_STRATEGY);
+            int outcome = records.get(at + FIELD_OUTCOME);
+            out.write(format.format(new Date(time)));
+            out.write(',');
+            out.write(Long.toString(time));
+            out.write(',');
+            out.write(previous < 0 ? "" : Long.toString(time - previous));
+            out.write(',');
+            out.write(strategy >= 0 && strategy < STRATEGY_NAMES.length ? STRATEGY_NAMES[strategy] : "unknown");
+            out.write(',');
+            out.write(Integer.toString(records.getInt(at + FIELD_WINDOW)));
+            out.write(',');
+            out.write(outcome >= 0 && outcome < OUTCOME_NAMES.length ? OUTCOME_NAMES[outcome] : "unknown");
+            out.write(',');
+            out.write(Integer.toString(records.getInt(at + FIELD_LATENCY)));
+            out.write('\n');
+            previous = time;
+        }
+        return count;
+    }
+}
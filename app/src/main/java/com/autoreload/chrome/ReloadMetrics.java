@@ -0,0 +1,180 @@
+package com.autoreload.chrome;
+
+import android.os.SystemClock;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timestamps every reload from trigger through gesture completion, first
+ * content change and settled load, and keeps histograms of each stage.
+ * Shared by both services and MainActivity.
+ */
+public class ReloadMetrics {
+
+    private static final ReloadMetrics instance = new ReloadMetrics();
+
+    private final LatencyHistogram gestureLatency = new LatencyHistogram();
+    private final LatencyHistogram firstChangeLatency = new LatencyHistogram();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram drift = new LatencyHistogram();
+    private final AtomicLong triggers = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong preCheckSkipped = new AtomicLong();
+
+    // Timestamps of the reload currently in progress, 0 when not reached yet
+    private volatile long triggeredAt;
+    private volatile long gestureDoneAt;
+    private volatile long firstChangeAt;
+
+    public static ReloadMetrics getInstance() {
+        return instance;
+    }
+
+    public void onTrigger() {
+        long now = SystemClock.uptimeMillis();
+        if (triggeredAt != 0) {
+            // The previous reload never settled
+            failures.incrementAndGet();
+        }
+        triggers.incrementAndGet();
+        triggeredAt = now;
+        gestureDoneAt = 0;
+        firstChangeAt = 0;
+    }
+
+    public void onGestureCompleted() {
+        long start = triggeredAt;
+        if (start == 0 || gestureDoneAt != 0) return;
+        gestureDoneAt = SystemClock.uptimeMillis();
+        gestureLatency.record(gestureDoneAt - start);
+    }
+
+    public void onFirstContentChange() {
+        long start = triggeredAt;
+        if (start == 0 || firstChangeAt != 0) return;
+        firstChangeAt = SystemClock.uptimeMillis();
+        firstChangeLatency.record(firstChangeAt - start);
+    }
+
+    public void onLoadSettled(long loadMillis) {
+        if (triggeredAt == 0) return;
+        loadLatency.record(loadMillis);
+        triggeredAt = 0;
+    }
+
+    public void onFailure() {
+        if (triggeredAt == 0) return;
+        failures.incrementAndGet();
+        triggeredAt = 0;
+    }
+
+    // Multi-window reloads overlap, so their callers time the stages themselves
+    // and only report them here, through these and the histogram getters
+    public void recordTrigger() {
+        triggers.incrementAndGet();
+    }
+
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    // A gesture was cancelled by the system, it may still be retried
+    public void onGestureCancelled() {
+        cancelled.incrementAndGet();
+    }
+
+    // A trigger arrived while a reload was still in flight
+    public void onCoalesced() {
+        coalesced.incrementAndGet();
+    }
+
+    // A tick found the previous pre-check still running and reloaded without one
+    public void onPreCheckSkipped() {
+        preCheckSkipped.incrementAndGet();
+    }
+
+    public LatencyHistogram getGestureLatency() {
+        return gestureLatency;
+    }
+
+    public LatencyHistogram getFirstChangeLatency() {
+        return firstChangeLatency;
+    }
+
+    public LatencyHistogram getLoadLatency() {
+        return loadLatency;
+    }
+
+    // How late scheduled reloads ran compared to their planned time, filled in by ReloadScheduler
+    public LatencyHistogram getDrift() {
+        return drift;
+    }
+
+    public long getTriggerCount() {
+        return triggers.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getPreCheckSkippedCount() {
+        return preCheckSkipped.get();
+    }
+
+    public void reset() {
+        gestureLatency.reset();
+        firstChangeLatency.reset();
+        loadLatency.reset();
+        drift.reset();
+        triggers.set(0);
+        failures.set(0);
+        cancelled.set(0);
+        coalesced.set(0);
+        preCheckSkipped.set(0);
+        triggeredAt = 0;
+        gestureDoneAt = 0;
+        firstChangeAt = 0;
+    }
+
+    // Short readout for the overlay status line
+    public String formatSummary() {
+        if (loadLatency.getCount() == 0) {
+            return String.format(Locale.US, "Load: - | Failed: %d", failures.get());
+        }
+        return String.format(Locale.US, "Load p50/95/99: %d/%d/%d ms\nFailed: %d",
+            loadLatency.getPercentile(50), loadLatency.getPercentile(95),
+            loadLatency.getPercentile(99), failures.get());
+    }
+
+    // Full breakdown for MainActivity
+    public String formatReport() {
+        return String.format(Locale.US, "Reloads: %d, failed: %d\n", triggers.get(), failures.get())
+            + String.format(Locale.US, "Gestures cancelled: %d, triggers merged: %d\n",
+                cancelled.get(), coalesced.get())
+            + String.format(Locale.US, "Pre-checks skipped: %d\n", preCheckSkipped.get())
+            + formatLine("Gesture", gestureLatency)
+            + formatLine("First change", firstChangeLatency)
+            + formatLine("Load settled", loadLatency)
+            + formatLine("Drift", drift);
+    }
+
+    private static String formatLine(String label, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return label + ": no data\n";
+        }
+        return String.format(Locale.US, "%s: p50 %d, p95 %d, p99 %d, max %d ms\n", label,
+            histogram.getPercentile(50), histogram.getPercentile(95),
+            histogram.getPercentile(99), histogram.getMax());
+    }
+}
@@ -0,0 +1,159 @@
+package com.autoreload.chrome;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * Fires the reload task on a dedicated thread against absolute
+ * {@link SystemClock#uptimeMillis()} deadlines, so UI work on the main
+ * looper can't delay or drift the schedule. Each tick only posts the task
+ * to the target handler. Jitter is how late a scheduled task starts on the
+ * target thread, so it includes the wait behind other work queued there.
+ * Ticks fired on demand have no deadline to be late for.
+ * A throttle factor stretches the period without losing the target rate.
+ * The deadline arithmetic is in {@link #nextDeadline} and the time comes
+ * from a {@link Clock}, so both can be exercised without a device.
+ */
+public class ReloadScheduler {
+
+    public enum Mode {
+        // Deadlines are a fixed grid, missed slots are skipped
+        FIXED_RATE,
+        // Next deadline is one period after the previous tick actually fired
+        FIXED_DELAY
+    }
+
+    public static final long MIN_PERIOD = 100;
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final Handler targetHandler;
+    private final Runnable task;
+    private final LatencyHistogram jitter;
+    private final Clock clock;
+
+    private volatile boolean running = false;
+    private volatile Mode mode = Mode.FIXED_RATE;
+    private volatile long periodMs = MIN_PERIOD;
+    private volatile int throttleFactor = 1;
+    // Only touched on the scheduler thread
+    private long nextDeadline;
+    // Deadline of the scheduled tick whose task was posted last, read on the target thread
+    private volatile long postedDeadline;
+
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            postedDeadline = nextDeadline;
+            fire(scheduledTask, clock.uptimeMillis());
+        }
+    };
+
+    private final Runnable scheduledTask = new Runnable() {
+        @Override
+        public void run() {
+            jitter.record(clock.uptimeMillis() - postedDeadline);
+            task.run();
+        }
+    };
+
+    private final Runnable fireNow = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            handler.removeCallbacks(tick);
+            long now = clock.uptimeMillis();
+            nextDeadline = now;
+            fire(task, now);
+        }
+    };
+
+    // Posts the task and schedules the next tick, on the scheduler thread
+    private void fire(Runnable target, long now) {
+        targetHandler.post(target);
+        nextDeadline = nextDeadline(mode, nextDeadline, now, getEffectivePeriod());
+        handler.postAtTime(tick, nextDeadline);
+    }
+
+    public ReloadScheduler(Handler targetHandler, Runnable task, LatencyHistogram jitter) {
+        this(targetHandler, task, jitter, Clock.UPTIME);
+    }
+
+    // The clock must match the uptime base Handler.postAtTime uses, or be driven with a fake looper
+    public ReloadScheduler(Handler targetHandler, Runnable task, LatencyHistogram jitter, Clock clock) {
+        this.targetHandler = targetHandler;
+        this.task = task;
+        this.jitter = jitter;
+        this.clock = clock;
+        thread = new HandlerThread("ReloadScheduler", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /** Starts firing immediately, then every {@code periodMs}. */
+    public void start(Mode mode, long periodMs) {
+        this.mode = mode;
+        this.periodMs = Math.max(MIN_PERIOD, periodMs);
+        running = true;
+        handler.removeCallbacks(tick);
+        handler.post(fireNow);
+    }
+
+    public void stop() {
+        running = false;
+        handler.removeCallbacks(tick);
+        handler.removeCallbacks(fireNow);
+        targetHandler.removeCallbacks(task);
+        targetHandler.removeCallbacks(scheduledTask);
+    }
+
+    /** Fires right away and restarts the period from now. */
+    public void triggerNow() {
+        if (!running) return;
+        handler.removeCallbacks(fireNow);
+        handler.postAtFrontOfQueue(fireNow);
+    }
+
+    /** Multiplies the period, 1 restores it. Takes effect from the next deadline on. */
+    public void setThrottleFactor(int factor) {
+        throttleFactor = Math.max(1, factor);
+    }
+
+    public int getThrottleFactor() {
+        return throttleFactor;
+    }
+
+    public long getEffectivePeriod() {
+        return periodMs * throttleFactor;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Deadline after a tick that was due at {@code previous} fired at
+     * {@code now}. Fixed rate stays on the grid and skips missed slots,
+     * fixed delay counts from when the tick actually fired.
+     */
+    public static long nextDeadline(Mode mode, long previous, long now, long period) {
+        if (mode == Mode.FIXED_DELAY) {
+            return now + period;
+        }
+        long next = previous + period;
+        if (next <= now) {
+            // Fell behind, skip to the next slot in the grid
+            long missed = (now - next) / period + 1;
+            next += missed * period;
+        }
+        return next;
+    }
+
+    public void quit() {
+        stop();
+        thread.quitSafely();
+    }
+}
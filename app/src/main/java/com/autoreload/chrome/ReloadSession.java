@@ -0,0 +1,90 @@
+package com.autoreload.chrome;
+
+import android.os.SystemClock;
+
+/**
+ * Counters for one Start/Stop reloading session.
+ */
+public class ReloadSession {
+
+    private long startedAt;
+    private int reloadCount;
+    private long lastLoadMillis = -1;
+    private long pausedMillis;
+    // When the current pause began, 0 while running
+    private long pausedAt;
+
+    public void start() {
+        startedAt = SystemClock.elapsedRealtime();
+        reloadCount = 0;
+        lastLoadMillis = -1;
+        pausedMillis = 0;
+        pausedAt = 0;
+    }
+
+    /** Continues a session that was checkpointed before the process died. */
+    public void restore(long startedAt, int reloadCount, long lastLoadMillis, long pausedMillis) {
+        this.startedAt = startedAt;
+        this.reloadCount = reloadCount;
+        this.lastLoadMillis = lastLoadMillis;
+        this.pausedMillis = pausedMillis;
+        pausedAt = 0;
+    }
+
+    public void pause() {
+        if (pausedAt == 0) {
+            pausedAt = SystemClock.elapsedRealtime();
+        }
+    }
+
+    public void resume() {
+        if (pausedAt != 0) {
+            pausedMillis += SystemClock.elapsedRealtime() - pausedAt;
+            pausedAt = 0;
+        }
+    }
+
+    public boolean isPaused() {
+        return pausedAt != 0;
+    }
+
+    public long getPausedMillis() {
+        long paused = pausedMillis;
+        if (pausedAt != 0) {
+            paused += SystemClock.elapsedRealtime() - pausedAt;
+        }
+        return paused;
+    }
+
+    public void recordReload() {
+        reloadCount++;
+    }
+
+    public void recordLoadTime(long loadMillis) {
+        lastLoadMillis = loadMillis;
+    }
+
+    public int getReloadCount() {
+        return reloadCount;
+    }
+
+    public long getLastLoadMillis() {
+        return lastLoadMillis;
+    }
+
+    // elapsedRealtime when the session started
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return SystemClock.elapsedRealtime() - startedAt;
+    }
+
+    // Rate over the time reloading was actually running, pauses excluded
+    public float getReloadsPerMinute() {
+        long elapsed = getElapsedMillis() - getPausedMillis();
+        if (elapsed <= 0) return 0f;
+        return reloadCount * 60000f / elapsed;
+    }
+}
@@ -0,0 +1,78 @@
+package com.autoreload.chrome;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reloading state shared between the services. At most one reload is in
+ * flight at a time and it is identified by a token; triggers that arrive
+ * while one is in flight are merged into a single pending trigger that
+ * runs as soon as the current reload finishes.
+ */
+public class ReloadStateMachine {
+
+    public static final int STOPPED = 0;
+    public static final int IDLE = 1;
+    public static final int IN_FLIGHT = 2;
+
+    // Returned by begin() when no reload was started
+    public static final int NO_TOKEN = -1;
+
+    private final AtomicInteger state = new AtomicInteger(STOPPED);
+    private final AtomicInteger token = new AtomicInteger();
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    // Also clears a reload left in flight by a service instance that went away
+    public void start() {
+        pending.set(false);
+        if (state.getAndSet(IDLE) == IN_FLIGHT) {
+            // Its token must not release the slot later
+            token.incrementAndGet();
+        }
+    }
+
+    public void stop() {
+        state.set(STOPPED);
+        pending.set(false);
+        token.incrementAndGet();
+    }
+
+    public boolean isActive() {
+        return state.get() != STOPPED;
+    }
+
+    public boolean isInFlight() {
+        return state.get() == IN_FLIGHT;
+    }
+
+    /**
+     * Claims the in-flight slot and returns its token, or NO_TOKEN when
+     * stopped or when a reload is already in flight. In the latter case
+     * the trigger is remembered and runs after the current reload.
+     */
+    public int begin() {
+        if (state.compareAndSet(IDLE, IN_FLIGHT)) {
+            return token.incrementAndGet();
+        }
+        if (state.get() == IN_FLIGHT) {
+            // Any number of triggers collapse into one pending trigger
+            pending.set(true);
+        }
+        return NO_TOKEN;
+    }
+
+    public int currentToken() {
+        return state.get() == IN_FLIGHT ? token.get() : NO_TOKEN;
+    }
+
+    /**
+     * Releases the in-flight slot if {@code reloadToken} still owns it.
+     * Returns true when a trigger was merged while it was in flight, so
+     * the caller should start the next reload right away.
+     */
+    public boolean finish(int reloadToken) {
+        if (reloadToken == NO_TOKEN || reloadToken != token.get()) return false;
+        if (!state.compareAndSet(IN_FLIGHT, IDLE)) return false;
+        return pending.getAndSet(false);
+    }
+}
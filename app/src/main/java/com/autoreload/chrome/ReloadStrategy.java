@@ -0,0 +1,21 @@
+package com.autoreload.chrome;
+
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * One way of making the browser reload the current page.
+ */
+public interface ReloadStrategy {
+
+    String getName();
+
+    // True for strategies that inject touch gestures, the costlier kind under throttling
+    boolean usesGesture();
+
+    /**
+     * Starts a reload in the window behind {@code root}. Returns false when
+     * the strategy can't be used right now, e.g. the control or URL isn't
+     * available, so the next strategy can be tried. Must not recycle root.
+     */
+    boolean perform(AccessibilityNodeInfo root);
+}
@@ -0,0 +1,191 @@
+package com.autoreload.chrome;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The running reloading session, kept in a small memory-mapped file so it
+ * survives the process being killed. Updating it is a few puts into the
+ * mapping, cheap enough to do on every reload. When FloatingButtonService
+ * is recreated it finds the session here and resumes it. The strategy that
+ * last reloaded and the window it reloaded are kept as well, so the
+ * accessibility service can go straight back to them.
+ *
+ * Times are elapsedRealtime, which keeps counting while the process is
+ * dead. A checkpoint from before the last reboot is never active.
+ */
+public class SessionCheckpoint {
+
+    private static final String TAG = "SessionCheckpoint";
+    private static final String FILE_NAME = "session_checkpoint.bin";
+
+    private static final int MAGIC = 0x5253434b; // "RSCK"
+    private static final int VERSION = 2;
+    private static final int SIZE = 192;
+
+    private static final int OFFSET_ACTIVE = 8;
+    private static final int OFFSET_BOOT = 12;
+    private static final int OFFSET_MODE = 16;
+    private static final int OFFSET_INTERVAL = 20;
+    private static final int OFFSET_STARTED = 28;
+    private static final int OFFSET_SAVED = 36;
+    private static final int OFFSET_PAUSED = 44;
+    private static final int OFFSET_RELOADS = 52;
+    private static final int OFFSET_LAST_LOAD = 56;
+    private static final int OFFSET_STRATEGY = 60;
+    private static final int OFFSET_WINDOW = 64;
+    private static final int OFFSET_PACKAGE_LENGTH = 68;
+    private static final int OFFSET_PACKAGE = 72;
+    // Longer package names are not recorded, the target is then unknown
+    private static final int MAX_PACKAGE_BYTES = SIZE - OFFSET_PACKAGE;
+
+    // Session modes
+    public static final int MODE_ADAPTIVE = 0;
+    public static final int MODE_FIXED_RATE = 1;
+    public static final int MODE_FIXED_DELAY = 2;
+
+    private static SessionCheckpoint instance;
+
+    // Null if the file couldn't be mapped, sessions then just aren't resumed
+    private final MappedByteBuffer buffer;
+    private final int bootCount;
+    // Package last written, so an unchanged target isn't encoded again
+    private String targetPackage;
+
+    public static synchronized SessionCheckpoint getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionCheckpoint(new File(context.getFilesDir(), FILE_NAME),
+                Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, 0));
+        }
+        return instance;
+    }
+
+    private SessionCheckpoint(File file, int bootCount) {
+        this.bootCount = bootCount;
+        MappedByteBuffer mapped = null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+        } catch (IOException e) {
+            Log.w(TAG, "Checkpoint unavailable", e);
+        }
+        buffer = mapped;
+        if (buffer == null) return;
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(OFFSET_ACTIVE, 0);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        }
+    }
+
+    /** Records a new session with its settings and the session's counters. */
+    public synchronized void start(int mode, long intervalMs, ReloadSession session) {
+        if (buffer == null) return;
+        buffer.putInt(OFFSET_ACTIVE, 0);
+        buffer.putInt(OFFSET_BOOT, bootCount);
+        buffer.putInt(OFFSET_MODE, mode);
+        buffer.putLong(OFFSET_INTERVAL, intervalMs);
+        buffer.putLong(OFFSET_STARTED, session.getStartedAt());
+        writeCounters(session);
+        setTarget(ReloadJournal.STRATEGY_UNKNOWN, -1, null);
+        // Flag goes last so a half-written session is never resumed
+        buffer.putInt(OFFSET_ACTIVE, 1);
+    }
+
+    // Called whenever the session's counters change
+    public synchronized void update(ReloadSession session) {
+        if (buffer == null || buffer.getInt(OFFSET_ACTIVE) == 0) return;
+        writeCounters(session);
+    }
+
+    /**
+     * Records the strategy (a ReloadJournal STRATEGY_* code) that started the
+     * last reload, and the browser window and package it reloaded.
+     */
+    public synchronized void setTarget(int strategy, int windowId, String packageName) {
+        if (buffer == null) return;
+        buffer.putInt(OFFSET_STRATEGY, strategy);
+        buffer.putInt(OFFSET_WINDOW, windowId);
+        if (packageName != null && packageName.equals(targetPackage)) return;
+        targetPackage = packageName;
+        byte[] bytes = packageName == null ? new byte[0] : packageName.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_PACKAGE_BYTES) {
+            bytes = new byte[0];
+        }
+        buffer.putInt(OFFSET_PACKAGE_LENGTH, 0);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(OFFSET_PACKAGE + i, bytes[i]);
+        }
+        buffer.putInt(OFFSET_PACKAGE_LENGTH, bytes.length);
+    }
+
+    public synchronized void clear() {
+        if (buffer == null) return;
+        buffer.putInt(OFFSET_ACTIVE, 0);
+    }
+
+    // True if a session was running when the process went away
+    public synchronized boolean isActive() {
+        return buffer != null
+            && buffer.getInt(OFFSET_ACTIVE) != 0
+            && buffer.getInt(OFFSET_BOOT) == bootCount
+            && buffer.getLong(OFFSET_SAVED) <= SystemClock.elapsedRealtime();
+    }
+
+    public synchronized int getMode() {
+        return buffer == null ? MODE_ADAPTIVE : buffer.getInt(OFFSET_MODE);
+    }
+
+    public synchronized long getInterval() {
+        return buffer == null ? 0 : buffer.getLong(OFFSET_INTERVAL);
+    }
+
+    public synchronized int getStrategy() {
+        return buffer == null ? ReloadJournal.STRATEGY_UNKNOWN : buffer.getInt(OFFSET_STRATEGY);
+    }
+
+    public synchronized int getWindowId() {
+        return buffer == null ? -1 : buffer.getInt(OFFSET_WINDOW);
+    }
+
+    // Package of the window last reloaded, or null if none was recorded
+    public synchronized String getPackage() {
+        if (buffer == null) return null;
+        int length = buffer.getInt(OFFSET_PACKAGE_LENGTH);
+        if (length <= 0 || length > MAX_PACKAGE_BYTES) return null;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(OFFSET_PACKAGE + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Puts the checkpointed counters back into {@code session}. The time
+     * since the last update, most of which the process was dead, counts
+     * as paused.
+     */
+    public synchronized void restore(ReloadSession session) {
+        if (buffer == null) return;
+        long downtime = SystemClock.elapsedRealtime() - buffer.getLong(OFFSET_SAVED);
+        session.restore(buffer.getLong(OFFSET_STARTED),
+            buffer.getInt(OFFSET_RELOADS),
+            buffer.getInt(OFFSET_LAST_LOAD),
+            buffer.getLong(OFFSET_PAUSED) + Math.max(0, downtime));
+    }
+
+    private void writeCounters(ReloadSession session) {
+        buffer.putLong(OFFSET_SAVED, SystemClock.elapsedRealtime());
+        buffer.putLong(OFFSET_PAUSED, session.getPausedMillis());
+        buffer.putInt(OFFSET_RELOADS, session.getReloadCount());
+        buffer.putInt(OFFSET_LAST_LOAD, (int) Math.min(Integer.MAX_VALUE, session.getLastLoadMillis()));
+    }
+}
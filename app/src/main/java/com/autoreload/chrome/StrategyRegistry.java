@@ -0,0 +1,195 @@
+package com.autoreload.chrome;
+
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Keeps success rate and trigger-to-load latency for every reload strategy
+ * per browser package, and picks the fastest reliable strategy for the next
+ * reload. Now and then another strategy is tried so the numbers stay fresh.
+ * Statistics are stored in AutoReloadPrefs so tuning survives restarts.
+ */
+public class StrategyRegistry {
+
+    private static final String KEY_PREFIX = "strategy_stats_";
+    // Share of reloads that try a random strategy instead of the best one
+    private static final float EXPLORE_RATE = 0.1f;
+    // A strategy needs this many attempts before its numbers are trusted
+    private static final int MIN_ATTEMPTS = 3;
+    private static final float MIN_SUCCESS_RATE = 0.8f;
+    // Weight of the newest sample in the latency moving average
+    private static final float LATENCY_ALPHA = 0.2f;
+    private static final int SAVE_EVERY = 10;
+    // Older outcomes are halved away past this many attempts so the rate can adapt
+    private static final int MAX_HISTORY = 100;
+
+    public static class Stats {
+        int attempts;
+        int successes;
+        float avgLatencyMs;
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public float getSuccessRate() {
+            return attempts == 0 ? 0f : (float) successes / attempts;
+        }
+
+        public float getAvgLatencyMs() {
+            return avgLatencyMs;
+        }
+    }
+
+    private final SharedPreferences prefs;
+    private final List<ReloadStrategy> strategies;
+    private final Map<String, Stats> stats = new HashMap<>();
+    private final Random random = new Random();
+    // Returned by order(), refilled on every call
+    private final List<ReloadStrategy> ordered = new ArrayList<>();
+
+    private Stats pending;
+    private long pendingSince;
+    private int unsavedUpdates;
+
+    public StrategyRegistry(SharedPreferences prefs, List<ReloadStrategy> strategies) {
+        this.prefs = prefs;
+        this.strategies = strategies;
+    }
+
+    /**
+     * Returns all strategies in the order they should be tried for the
+     * given browser: the chosen one first, then the rest as fallbacks.
+     * The list is reused by the next call.
+     */
+    public List<ReloadStrategy> order(String browserPackage) {
+        ordered.clear();
+        ordered.addAll(strategies);
+        ReloadStrategy first = choose(browserPackage);
+        ordered.remove(first);
+        ordered.add(0, first);
+        return ordered;
+    }
+
+    private ReloadStrategy choose(String browserPackage) {
+        // Make sure every strategy gets a fair number of tries first
+        for (ReloadStrategy strategy : strategies) {
+            if (getStats(browserPackage, strategy).attempts < MIN_ATTEMPTS) {
+                return strategy;
+            }
+        }
+        if (random.nextFloat() < EXPLORE_RATE) {
+            return strategies.get(random.nextInt(strategies.size()));
+        }
+
+        ReloadStrategy best = null;
+        float bestLatency = Float.MAX_VALUE;
+        ReloadStrategy mostReliable = strategies.get(0);
+        float bestRate = -1f;
+        for (ReloadStrategy strategy : strategies) {
+            Stats s = getStats(browserPackage, strategy);
+            float rate = s.getSuccessRate();
+            if (rate > bestRate) {
+                bestRate = rate;
+                mostReliable = strategy;
+            }
+            if (rate >= MIN_SUCCESS_RATE && s.avgLatencyMs < bestLatency) {
+                bestLatency = s.avgLatencyMs;
+                best = strategy;
+            }
+        }
+        return best != null ? best : mostReliable;
+    }
+
+    // Called when a strategy has actually started a reload
+    public void recordAttempt(String browserPackage, ReloadStrategy strategy) {
+        if (pending != null) {
+            // The previous reload never reported a finished load
+            recordOutcome(false, 0);
+        }
+        pending = getStats(browserPackage, strategy);
+        pendingSince = SystemClock.uptimeMillis();
+    }
+
+    // Called when a strategy could not be used at all
+    public void recordUnavailable(String browserPackage, ReloadStrategy strategy) {
+        Stats s = getStats(browserPackage, strategy);
+        s.attempts++;
+        markDirty();
+    }
+
+    public void recordLoadComplete(long loadMillis) {
+        if (pending == null) return;
+        recordOutcome(true, loadMillis >= 0 ? loadMillis : SystemClock.uptimeMillis() - pendingSince);
+    }
+
+    public void recordFailure() {
+        if (pending == null) return;
+        recordOutcome(false, 0);
+    }
+
+    public Stats getStats(String browserPackage, ReloadStrategy strategy) {
+        String key = KEY_PREFIX + browserPackage + "_" + strategy.getName();
+        Stats s = stats.get(key);
+        if (s == null) {
+            s = load(key);
+            stats.put(key, s);
+        }
+        return s;
+    }
+
+    public void save() {
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            editor.putString(entry.getKey(), s.attempts + "," + s.successes + "," + s.avgLatencyMs);
+        }
+        editor.apply();
+        unsavedUpdates = 0;
+    }
+
+    private void recordOutcome(boolean success, long latencyMs) {
+        Stats s = pending;
+        pending = null;
+        s.attempts++;
+        if (s.attempts > MAX_HISTORY) {
+            s.attempts /= 2;
+            s.successes /= 2;
+        }
+        if (success) {
+            s.successes++;
+            s.avgLatencyMs = s.avgLatencyMs == 0
+                ? latencyMs
+                : s.avgLatencyMs + LATENCY_ALPHA * (latencyMs - s.avgLatencyMs);
+        }
+        markDirty();
+    }
+
+    private void markDirty() {
+        if (++unsavedUpdates >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    private Stats load(String key) {
+        Stats s = new Stats();
+        String value = prefs.getString(key, null);
+        if (value != null) {
+            String[] parts = value.split(",");
+            try {
+                s.attempts = Integer.parseInt(parts[0]);
+                s.successes = Integer.parseInt(parts[1]);
+                s.avgLatencyMs = Float.parseFloat(parts[2]);
+            } catch (RuntimeException e) {
+                // Corrupt entry, start over
+                s = new Stats();
+            }
+        }
+        return s;
+    }
+}
@@ -0,0 +1,167 @@
+package com.autoreload.chrome;
+
+import android.content.SharedPreferences;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds the shortest pull-to-refresh swipe that still makes a browser
+ * reload. Swipe reloads double as probes: while a browser is being
+ * calibrated each swipe uses the next candidate, and its outcome narrows
+ * a binary search, first over the stroke duration at full length, then
+ * over the length at the found duration. The result is stored per browser
+ * package in AutoReloadPrefs. A calibrated browser whose swipes start
+ * failing is calibrated again from the default gesture.
+ */
+public class SwipeCalibrator {
+
+    private static final String KEY_PREFIX = "swipe_profile_";
+
+    private static final long MIN_DURATION = 40;
+    private static final float MIN_DISTANCE = 0.1f;
+    // Search stops once the bounds are this close
+    private static final long DURATION_RESOLUTION = 10;
+    private static final float DISTANCE_RESOLUTION = 0.02f;
+    // Added to the found values so borderline swipes still work
+    private static final float DURATION_MARGIN = 1.15f;
+    private static final float DISTANCE_MARGIN = 0.03f;
+
+    // Recalibrate once the success rate over the last swipes falls below this
+    private static final int CHECK_WINDOW = 20;
+    private static final float MIN_SUCCESS_RATE = 0.8f;
+
+    private static final int STATE_DURATION = 0;
+    private static final int STATE_DISTANCE = 1;
+    private static final int STATE_CALIBRATED = 2;
+
+    private static class Profile {
+        int state = STATE_DURATION;
+        long duration = GestureGeometry.DEFAULT_SWIPE_DURATION;
+        float distance = GestureGeometry.DEFAULT_SWIPE_DISTANCE;
+
+        // Search bounds, low is known to fail (or untested), high is known to work
+        long durationLow = MIN_DURATION;
+        long durationHigh = GestureGeometry.DEFAULT_SWIPE_DURATION;
+        float distanceLow = MIN_DISTANCE;
+        float distanceHigh = GestureGeometry.DEFAULT_SWIPE_DISTANCE;
+
+        int attempts;
+        int successes;
+    }
+
+    private final SharedPreferences prefs;
+    private final Map<String, Profile> profiles = new HashMap<>();
+
+    public SwipeCalibrator(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    public boolean isCalibrating(String browserPackage) {
+        return profile(browserPackage).state != STATE_CALIBRATED;
+    }
+
+    // Stroke duration for the next swipe in this browser
+    public long getDuration(String browserPackage) {
+        Profile p = profile(browserPackage);
+        if (p.state == STATE_DURATION) return (p.durationLow + p.durationHigh) / 2;
+        return p.duration;
+    }
+
+    // Stroke length for the next swipe, as a fraction of the window height
+    public float getDistance(String browserPackage) {
+        Profile p = profile(browserPackage);
+        if (p.state == STATE_DISTANCE) return (p.distanceLow + p.distanceHigh) / 2;
+        return p.distance;
+    }
+
+    /** Reports whether the swipe from getDuration/getDistance started a load. */
+    public void onResult(String browserPackage, boolean loadStarted) {
+        Profile p = profile(browserPackage);
+        switch (p.state) {
+            case STATE_DURATION: {
+                long tried = (p.durationLow + p.durationHigh) / 2;
+                if (loadStarted) {
+                    p.durationHigh = tried;
+                } else {
+                    p.durationLow = tried;
+                }
+                if (p.durationHigh - p.durationLow <= DURATION_RESOLUTION) {
+                    p.duration = Math.min(GestureGeometry.DEFAULT_SWIPE_DURATION,
+                        (long) (p.durationHigh * DURATION_MARGIN));
+                    p.state = STATE_DISTANCE;
+                }
+                break;
+            }
+            case STATE_DISTANCE: {
+                float tried = (p.distanceLow + p.distanceHigh) / 2;
+                if (loadStarted) {
+                    p.distanceHigh = tried;
+                } else {
+                    p.distanceLow = tried;
+                }
+                if (p.distanceHigh - p.distanceLow <= DISTANCE_RESOLUTION) {
+                    p.distance = Math.min(GestureGeometry.DEFAULT_SWIPE_DISTANCE,
+                        p.distanceHigh + DISTANCE_MARGIN);
+                    p.state = STATE_CALIBRATED;
+                    p.attempts = 0;
+                    p.successes = 0;
+                    save(browserPackage, p);
+                }
+                break;
+            }
+            default: {
+                p.attempts++;
+                if (loadStarted) p.successes++;
+                if (p.attempts >= CHECK_WINDOW) {
+                    if ((float) p.successes / p.attempts < MIN_SUCCESS_RATE) {
+                        // The browser or device changed, search again from the default gesture
+                        profiles.put(browserPackage, new Profile());
+                        prefs.edit().remove(KEY_PREFIX + browserPackage).apply();
+                        return;
+                    }
+                    p.attempts = 0;
+                    p.successes = 0;
+                }
+                break;
+            }
+        }
+    }
+
+    // Calibrated gesture for a browser, or null while it is still being calibrated
+    public String describe(String browserPackage) {
+        Profile p = profile(browserPackage);
+        if (p.state != STATE_CALIBRATED) return null;
+        return String.format(Locale.US, "%d ms, %.0f%% of window", p.duration, p.distance * 100);
+    }
+
+    private Profile profile(String browserPackage) {
+        Profile p = profiles.get(browserPackage);
+        if (p == null) {
+            p = load(browserPackage);
+            profiles.put(browserPackage, p);
+        }
+        return p;
+    }
+
+    private void save(String browserPackage, Profile p) {
+        prefs.edit().putString(KEY_PREFIX + browserPackage, p.duration + "," + p.distance).apply();
+    }
+
+    private Profile load(String browserPackage) {
+        Profile p = new Profile();
+        String value = prefs.getString(KEY_PREFIX + browserPackage, null);
+        if (value != null) {
+            String[] parts = value.split(",");
+            try {
+                p.duration = Long.parseLong(parts[0]);
+                p.distance = Float.parseFloat(parts[1]);
+                p.state = STATE_CALIBRATED;
+            } catch (RuntimeException e) {
+                // Corrupt entry, calibrate again
+                p = new Profile();
+            }
+        }
+        return p;
+    }
+}
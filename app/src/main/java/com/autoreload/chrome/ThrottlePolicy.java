@@ -0,0 +1,173 @@
+package com.autoreload.chrome;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.PowerManager;
+import android.text.TextUtils;
+
+/**
+ * Slows reloading down while the device is hot or short on battery. Reads
+ * the thermal status, battery saver and battery level, turns them into an
+ * interval factor and tells the listener whenever that changes, so the
+ * target rate comes back by itself once conditions recover.
+ *
+ * Listener calls arrive on the given handler.
+ */
+public class ThrottlePolicy {
+
+    public interface Listener {
+        void onThrottleChanged(int factor, boolean cheapOnly);
+    }
+
+    // Battery levels below which reloading slows down when not charging
+    private static final int LOW_BATTERY = 20;
+    private static final int CRITICAL_BATTERY = 10;
+
+    // From this factor on only reload strategies without gestures are preferred
+    private static final int CHEAP_ONLY_FACTOR = 4;
+
+    private final Context context;
+    private final Handler handler;
+    private final PowerManager powerManager;
+    private Listener listener;
+
+    private boolean started = false;
+    private int thermalStatus = PowerManager.THERMAL_STATUS_NONE;
+    private boolean powerSave = false;
+    private int batteryLevel = 100;
+    private boolean charging = true;
+
+    private int factor = 1;
+    private String reason = null;
+
+    // A PowerManager.OnThermalStatusChangedListener, created on API 29+ only since
+    // the interface doesn't exist before and would crash the class on older devices
+    private Object thermalListener;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                readBattery(intent);
+            } else if (powerManager != null) {
+                powerSave = powerManager.isPowerSaveMode();
+            }
+            evaluate();
+        }
+    };
+
+    public ThrottlePolicy(Context context, Handler handler) {
+        this.context = context;
+        this.handler = handler;
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void start() {
+        if (started) return;
+        started = true;
+        if (powerManager != null) {
+            powerSave = powerManager.isPowerSaveMode();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                thermalStatus = powerManager.getCurrentThermalStatus();
+                PowerManager.OnThermalStatusChangedListener listener = status -> {
+                    thermalStatus = status;
+                    evaluate();
+                };
+                thermalListener = listener;
+                powerManager.addThermalStatusListener(handler::post, listener);
+            }
+        }
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        // Battery changes are sticky, so registering also returns the current state
+        Intent battery = context.registerReceiver(receiver, filter);
+        if (battery != null) {
+            readBattery(battery);
+        }
+        evaluate();
+    }
+
+    public void stop() {
+        if (!started) return;
+        started = false;
+        context.unregisterReceiver(receiver);
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            powerManager.removeThermalStatusListener(
+                (PowerManager.OnThermalStatusChangedListener) thermalListener);
+            thermalListener = null;
+        }
+    }
+
+    // Multiplier for the reload interval, 1 when nothing needs throttling
+    public int getFactor() {
+        return factor;
+    }
+
+    public boolean isCheapOnly() {
+        return factor >= CHEAP_ONLY_FACTOR;
+    }
+
+    // What causes the current throttling, or null
+    public String getReason() {
+        return reason;
+    }
+
+    public long apply(long intervalMs) {
+        return intervalMs * factor;
+    }
+
+    private void readBattery(Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (level >= 0 && scale > 0) {
+            batteryLevel = level * 100 / scale;
+        }
+        charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    private void evaluate() {
+        // The worst condition wins, they don't multiply
+        int newFactor = 1;
+        String newReason = null;
+
+        if (thermalStatus >= PowerManager.THERMAL_STATUS_CRITICAL) {
+            newFactor = 8;
+            newReason = "device very hot";
+        } else if (thermalStatus == PowerManager.THERMAL_STATUS_SEVERE) {
+            newFactor = 4;
+            newReason = "device hot";
+        } else if (thermalStatus == PowerManager.THERMAL_STATUS_MODERATE) {
+            newFactor = 2;
+            newReason = "device warm";
+        }
+
+        if (!charging && batteryLevel <= CRITICAL_BATTERY && newFactor < 4) {
+            newFactor = 4;
+            newReason = "battery " + batteryLevel + "%";
+        } else if (!charging && batteryLevel <= LOW_BATTERY && newFactor < 2) {
+            newFactor = 2;
+            newReason = "battery " + batteryLevel + "%";
+        }
+        if (powerSave && newFactor < 2) {
+            newFactor = 2;
+            newReason = "battery saver";
+        }
+
+        // The reason alone can change too, e.g. the battery level, and the overlay shows it
+        if (newFactor == factor && TextUtils.equals(newReason, reason)) return;
+        reason = newReason;
+        factor = newFactor;
+        if (listener != null) {
+            listener.onThrottleChanged(factor, isCheapOnly());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.autoreload.chrome;
+
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.List;
+
+/**
+ * Reloads a page by sending its URL back to the browser as an ACTION_VIEW
+ * intent, so no touch gesture is needed. The URL is read from the
+ * browser's URL bar once per window and cached, as shown there, until the
+ * window changes. The scheme the bar may hide is only guessed for the intent.
+ * Browsers whose URL bar ID isn't known are searched for a text field
+ * holding a URL, within a small node budget.
+ *
+ * Chrome-based browsers reuse a tab for an intent only if that tab was
+ * opened by the same application id. The tab the user opened isn't, so
+ * the first reload opens the page in one new tab, which every later
+ * reload then reuses.
+ */
+public class UrlReloader {
+
+    // URL bar view IDs, relative to the browser package
+    private static final String[] URL_BAR_IDS = {
+        "url_bar",                          // Chrome, Brave, Edge
+        "location_bar_edit_text",           // Samsung Internet
+        "mozac_browser_toolbar_url_view"    // Firefox
+    };
+
+    // Browser extras that make Chrome-based browsers reuse the tab opened for our app id
+    private static final String EXTRA_APPLICATION_ID = "com.android.browser.application_id";
+    private static final String EXTRA_CREATE_NEW_TAB = "create_new_tab";
+
+    // The URL bar sits in the toolbar near the top of the tree
+    private static final int SEARCH_DEPTH = 24;
+    private static final int SEARCH_NODE_BUDGET = 400;
+    private static final long SEARCH_TIME_BUDGET = 20;
+
+    private final WindowCache<String> addressCache = new WindowCache<>();
+    private final NodeTraversal<AccessibilityNodeInfo> traversal =
+        NodeTraversal.overAccessibility(SEARCH_DEPTH, SEARCH_NODE_BUDGET, SEARCH_TIME_BUDGET);
+    private final NodeTraversal.Visitor<AccessibilityNodeInfo> urlFieldVisitor = UrlReloader::visitForUrlField;
+
+    /**
+     * Re-opens the current URL in the same browser. Returns false when the
+     * URL can't be read, so the caller can fall back to a gesture.
+     */
+    public boolean reload(Context context, AccessibilityNodeInfo root) {
+        CharSequence packageName = root.getPackageName();
+        if (packageName == null) return false;
+
+        String url = normalizeUrl(getAddress(root));
+        if (url == null) return false;
+
+        String browserPackage = packageName.toString();
+        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
+        intent.setPackage(browserPackage);
+        intent.putExtra(EXTRA_APPLICATION_ID, context.getPackageName());
+        intent.putExtra(EXTRA_CREATE_NEW_TAB, false);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        try {
+            context.startActivity(intent);
+            return true;
+        } catch (ActivityNotFoundException e) {
+            addressCache.remove(root);
+            return false;
+        }
+    }
+
+    // The page address as the URL bar shows it, which may lack the scheme
+    public String getAddress(AccessibilityNodeInfo root) {
+        String address = addressCache.get(root);
+        if (address == null) {
+            address = readUrlBar(root);
+            if (address != null) {
+                addressCache.put(root, address);
+            }
+        }
+        return address;
+    }
+
+    // Drops cached URLs for a package whose window changed
+    public void invalidate(CharSequence packageName) {
+        addressCache.invalidate(packageName);
+    }
+
+    public void clear() {
+        addressCache.clear();
+    }
+
+    private String readUrlBar(AccessibilityNodeInfo root) {
+        String packageName = String.valueOf(root.getPackageName());
+        for (String id : URL_BAR_IDS) {
+            List<AccessibilityNodeInfo> nodes =
+                root.findAccessibilityNodeInfosByViewId(packageName + ":id/" + id);
+            if (nodes == null || nodes.isEmpty()) continue;
+
+            String address = null;
+            for (AccessibilityNodeInfo node : nodes) {
+                // A focused URL bar holds whatever the user is typing
+                if (address == null && !node.isFocused()) {
+                    address = readAddress(node.getText());
+                }
+                node.recycle();
+            }
+            if (address != null) return address;
+        }
+
+        traversal.walk(root, urlFieldVisitor);
+        AccessibilityNodeInfo field = traversal.takeKept();
+        if (field == null) return null;
+        String address = readAddress(field.getText());
+        field.recycle();
+        return address;
+    }
+
+    private static int visitForUrlField(AccessibilityNodeInfo node, int depth) {
+        CharSequence className = node.getClassName();
+        if (depth == 0 || className == null || !"android.widget.EditText".contentEquals(className)) {
+            return NodeTraversal.CONTINUE;
+        }
+        return !node.isFocused() && readAddress(node.getText()) != null
+            ? NodeTraversal.KEEP : NodeTraversal.SKIP_CHILDREN;
+    }
+
+    // URL bar text that looks like a page address, or null
+    static String readAddress(CharSequence text) {
+        if (text == null) return null;
+        String address = text.toString().trim();
+        if (address.isEmpty() || address.indexOf(' ') >= 0) return null;
+        if (!address.contains("://") && address.indexOf('.') < 0) return null;
+        return address;
+    }
+
+    static String normalizeUrl(String address) {
+        if (address == null || address.contains("://")) return address;
+        // Browsers hide the scheme in the URL bar, Chrome hides http:// as well as
+        // https://. http:// reaches both kinds of page in the browser: https sites
+        // redirect or get upgraded, while guessing https breaks plain http sites.
+        return "http://" + address;
+    }
+}
@@ -0,0 +1,59 @@
+package com.autoreload.chrome;
+
+import android.util.SparseArray;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+/**
+ * Values remembered per browser window, keyed by window ID. Each entry
+ * keeps the package it belongs to, so a window ID reused by another app
+ * misses, and everything a package cached can be dropped when its window
+ * changes. Lookups don't allocate.
+ */
+public class WindowCache<V> {
+
+    private static final class Entry<V> {
+        final String packageName;
+        final V value;
+
+        Entry(String packageName, V value) {
+            this.packageName = packageName;
+            this.value = value;
+        }
+    }
+
+    private final SparseArray<Entry<V>> entries = new SparseArray<>();
+
+    public V get(AccessibilityNodeInfo root) {
+        Entry<V> entry = entries.get(root.getWindowId());
+        CharSequence packageName = root.getPackageName();
+        if (entry == null || packageName == null || !entry.packageName.contentEquals(packageName)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(AccessibilityNodeInfo root, V value) {
+        entries.put(root.getWindowId(), new Entry<>(String.valueOf(root.getPackageName()), value));
+    }
+
+    public void remove(AccessibilityNodeInfo root) {
+        entries.remove(root.getWindowId());
+    }
+
+    // Drops the entries of a package whose window changed, or all of them for null
+    public void invalidate(CharSequence packageName) {
+        if (packageName == null) {
+            entries.clear();
+            return;
+        }
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.valueAt(i).packageName.contentEquals(packageName)) {
+                entries.removeAt(i);
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package com.autoreload.chrome;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Matching the attributes of one node, for the kinds of nodes a scan meets. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LabelMatcherBenchmark {
+
+    private final LabelMatcher matcher = new LabelMatcher();
+    private final LabelMatcher extended = LabelMatcher.withExtraLabels("Seite aktualisieren,Ververs,Päivitä");
+
+    private final String pageText = "Aggiornamenti disponibili per il tuo dispositivo";
+    private final String viewId = "com.android.chrome:id/url_bar";
+
+    @Benchmark
+    public int reloadButton() {
+        return matcher.match(null, "Reload page", "com.android.chrome:id/refresh_button");
+    }
+
+    // The common case: page text that matches nothing
+    @Benchmark
+    public int pageNode() {
+        return matcher.match(pageText, null, null);
+    }
+
+    @Benchmark
+    public int toolbarNode() {
+        return matcher.match("example.com/news", null, viewId);
+    }
+
+    @Benchmark
+    public int pageNodeWithExtraLabels() {
+        return extended.match(pageText, null, null);
+    }
+}
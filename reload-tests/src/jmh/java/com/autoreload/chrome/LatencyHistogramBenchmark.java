@@ -0,0 +1,68 @@
+package com.autoreload.chrome;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Recording simulated gesture latencies, alone and from several windows at once. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    private final LatencyHistogram shared = new LatencyHistogram();
+    private final long[] latencies = new long[SAMPLES];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            latencies[i] = Math.round(120 * Math.exp(0.5 * random.nextGaussian()));
+        }
+        for (long latency : latencies) {
+            shared.record(latency);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public long record(Cursor cursor) {
+        long latency = latencies[cursor.next++ & (SAMPLES - 1)];
+        shared.record(latency);
+        return latency;
+    }
+
+    // Gesture callbacks of split screen windows recording at once
+    @Benchmark
+    @Threads(4)
+    public long recordContended(Cursor cursor) {
+        long latency = latencies[cursor.next++ & (SAMPLES - 1)];
+        shared.record(latency);
+        return latency;
+    }
+
+    // What the status line asks for on every update
+    @Benchmark
+    public long percentile() {
+        return shared.getPercentile(95);
+    }
+}
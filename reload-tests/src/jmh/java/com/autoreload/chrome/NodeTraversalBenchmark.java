@@ -0,0 +1,83 @@
+package com.autoreload.chrome;
+
+import com.autoreload.chrome.fixtures.FakeNode;
+import com.autoreload.chrome.fixtures.SyntheticTree;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Walks over browser windows of 1k to 50k nodes, with the toolbar after
+ * the page so nothing is found early.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeTraversalBenchmark {
+
+    // Budgets of the page change watcher
+    private static final int NODE_BUDGET = 20000;
+    private static final long TIME_BUDGET = 250;
+
+    private static final Clock NANO_CLOCK = () -> System.nanoTime() / 1000000;
+
+    @Param({"1000", "10000", "50000"})
+    public int nodes;
+
+    private FakeNode root;
+    private NodeTraversal<FakeNode> unbounded;
+    private NodeTraversal<FakeNode> budgeted;
+    private final LabelMatcher matcher = new LabelMatcher();
+
+    @Setup
+    public void setUp() {
+        root = SyntheticTree.browserWindow(nodes, true, 42);
+        SyntheticTree tree = new SyntheticTree();
+        unbounded = new NodeTraversal<>(tree, NANO_CLOCK, 128, Integer.MAX_VALUE, Long.MAX_VALUE / 2);
+        budgeted = new NodeTraversal<>(tree, NANO_CLOCK, 128, NODE_BUDGET, TIME_BUDGET);
+    }
+
+    @Benchmark
+    public int fullWalk() {
+        unbounded.walk(root, (node, depth) -> NodeTraversal.CONTINUE);
+        return unbounded.getVisitedCount();
+    }
+
+    // The page change watcher's walk, cut off at its node budget
+    @Benchmark
+    public int budgetedWalk() {
+        return budgeted.walk(root, (node, depth) -> NodeTraversal.CONTINUE);
+    }
+
+    // Refresh button scan that goes through the page content as well
+    @Benchmark
+    public FakeNode scanWholeTree() {
+        unbounded.walk(root, (node, depth) ->
+            node.clickable && matcher.match(node.text, node.contentDescription, node.viewId) != LabelMatcher.NO_MATCH
+                ? NodeTraversal.KEEP : NodeTraversal.CONTINUE);
+        return unbounded.takeKept();
+    }
+
+    // Same scan skipping the WebView, as the locator does
+    @Benchmark
+    public FakeNode scanSkippingPage() {
+        unbounded.walk(root, (node, depth) -> {
+            if (SyntheticTree.WEB_VIEW.equals(node.className)) return NodeTraversal.SKIP_CHILDREN;
+            return node.clickable && matcher.match(node.text, node.contentDescription, node.viewId) != LabelMatcher.NO_MATCH
+                ? NodeTraversal.KEEP : NodeTraversal.CONTINUE;
+        });
+        return unbounded.takeKept();
+    }
+}
@@ -0,0 +1,90 @@
+package com.autoreload.chrome;
+
+import com.autoreload.chrome.fixtures.FakeNode;
+import com.autoreload.chrome.fixtures.SyntheticTree;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The bookkeeping of one reload on a simulated clock: claim the in-flight
+ * slot, find the refresh button, record the gesture's latency, finish and
+ * schedule the next tick. Gesture latencies are drawn from a log-normal
+ * distribution around {@code medianLatency}, so now and then a gesture
+ * runs past the next deadline and the tick after it fires late.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReloadCycleBenchmark {
+
+    private static final long PERIOD = 1000;
+    private static final int SAMPLES = 4096;
+
+    @Param({"1000", "10000", "50000"})
+    public int nodes;
+
+    @Param({"40", "300"})
+    public int medianLatency;
+
+    private FakeNode root;
+    private NodeTraversal<FakeNode> traversal;
+    private final LabelMatcher matcher = new LabelMatcher();
+    private final ReloadStateMachine state = new ReloadStateMachine();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram jitter = new LatencyHistogram();
+    private final long[] latencies = new long[SAMPLES];
+
+    private long now;
+    private long deadline;
+    private int sample;
+
+    @Setup
+    public void setUp() {
+        root = SyntheticTree.browserWindow(nodes, true, 7);
+        traversal = new NodeTraversal<>(new SyntheticTree(), () -> now, 64, 5000, 150);
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            latencies[i] = Math.round(medianLatency * Math.exp(0.5 * random.nextGaussian()));
+        }
+        state.start();
+        deadline = PERIOD;
+        now = PERIOD;
+    }
+
+    @Benchmark
+    public long reload() {
+        // The tick fires at now
+        jitter.record(now - deadline);
+        deadline = ReloadScheduler.nextDeadline(ReloadScheduler.Mode.FIXED_RATE, deadline, now, PERIOD);
+
+        int token = state.begin();
+        traversal.walk(root, (node, depth) -> {
+            if (SyntheticTree.WEB_VIEW.equals(node.className)) return NodeTraversal.SKIP_CHILDREN;
+            return node.clickable && matcher.match(node.text, node.contentDescription, node.viewId) != LabelMatcher.NO_MATCH
+                ? NodeTraversal.KEEP : NodeTraversal.CONTINUE;
+        });
+        FakeNode button = traversal.takeKept();
+
+        long gesture = latencies[sample++ & (SAMPLES - 1)];
+        now += gesture;
+        latency.record(gesture);
+        state.finish(token);
+
+        now = Math.max(now, deadline);
+        return button == null ? -1 : latency.getPercentile(95);
+    }
+}
@@ -0,0 +1,44 @@
+package com.autoreload.chrome.fixtures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for an accessibility node, with the attributes the reload code
+ * reads. Built once and then only read.
+ */
+public final class FakeNode {
+
+    public final String className;
+    public final String text;
+    public final String contentDescription;
+    public final String viewId;
+    public final boolean clickable;
+    final List<FakeNode> children = new ArrayList<>();
+
+    public FakeNode(String className, String text, String contentDescription, String viewId,
+                    boolean clickable) {
+        this.className = className;
+        this.text = text;
+        this.contentDescription = contentDescription;
+        this.viewId = viewId;
+        this.clickable = clickable;
+    }
+
+    public static FakeNode view(String className) {
+        return new FakeNode(className, null, null, null, false);
+    }
+
+    public FakeNode add(FakeNode child) {
+        children.add(child);
+        return this;
+    }
+
+    public int getChildCount() {
+        return children.size();
+    }
+
+    public FakeNode getChild(int index) {
+        return children.get(index);
+    }
+}
@@ -0,0 +1,114 @@
+package com.autoreload.chrome.fixtures;
+
+import com.autoreload.chrome.NodeTree;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Generates browser-window-shaped node trees of a given size: a toolbar
+ * with the reload button, URL bar and progress bar, and a WebView whose
+ * page content makes up the rest of the nodes. As a NodeTree it counts
+ * obtained and recycled nodes, so tests can check that a walk leaks none.
+ */
+public final class SyntheticTree implements NodeTree<FakeNode> {
+
+    public static final String PACKAGE = "com.android.chrome";
+    public static final String WEB_VIEW = "android.webkit.WebView";
+
+    // Page nodes have up to this many children, like nested divs and lists
+    private static final int MAX_FANOUT = 6;
+    private static final int MAX_PAGE_DEPTH = 40;
+
+    private static final String[] PAGE_TEXT = {
+        "Home", "News", "Aggiornamenti disponibili", "Read more", "Sign in", "Next page",
+        "ページを更新", "Comments", "Share", null, null, null
+    };
+
+    private int obtained;
+    private int recycled;
+
+    /**
+     * A window with {@code nodes} nodes in total. With {@code toolbarLast}
+     * the page comes first in child order, as in some browsers, so a walk
+     * has to get past it to reach the toolbar.
+     */
+    public static FakeNode browserWindow(int nodes, boolean toolbarLast, long seed) {
+        FakeNode toolbar = FakeNode.view("android.widget.FrameLayout")
+            .add(new FakeNode("android.widget.ImageButton", null, "Home", PACKAGE + ":id/home_button", true))
+            .add(new FakeNode("android.widget.EditText", "example.com/news", null, PACKAGE + ":id/url_bar", true))
+            .add(new FakeNode("android.widget.ImageButton", null, "Reload page",
+                PACKAGE + ":id/refresh_button", true))
+            .add(new FakeNode("android.widget.ImageButton", null, "More options",
+                PACKAGE + ":id/menu_button", true))
+            .add(new FakeNode("android.widget.ProgressBar", null, null, PACKAGE + ":id/progress", false));
+        int toolbarNodes = 6;
+
+        FakeNode page = FakeNode.view(WEB_VIEW);
+        fill(page, Math.max(0, nodes - toolbarNodes - 2), new Random(seed));
+
+        FakeNode root = FakeNode.view("android.widget.FrameLayout");
+        if (toolbarLast) {
+            root.add(page).add(toolbar);
+        } else {
+            root.add(toolbar).add(page);
+        }
+        return root;
+    }
+
+    // Adds exactly {@code count} page nodes under {@code parent}, breadth first
+    private static void fill(FakeNode parent, int count, Random random) {
+        ArrayDeque<FakeNode> open = new ArrayDeque<>();
+        ArrayDeque<Integer> depths = new ArrayDeque<>();
+        open.add(parent);
+        depths.add(0);
+        int added = 0;
+        while (added < count) {
+            FakeNode node = open.poll();
+            int depth = depths.poll();
+            int fanout = depth >= MAX_PAGE_DEPTH ? 0 : 1 + random.nextInt(MAX_FANOUT);
+            for (int i = 0; i < fanout && added < count; i++) {
+                String text = PAGE_TEXT[random.nextInt(PAGE_TEXT.length)];
+                FakeNode child = new FakeNode("android.view.View", text, null, null, text != null);
+                node.add(child);
+                open.add(child);
+                depths.add(depth + 1);
+                added++;
+            }
+            if (open.isEmpty()) {
+                // Depth limit reached everywhere, keep growing from the page root
+                open.add(parent);
+                depths.add(0);
+            }
+        }
+    }
+
+    /** Counts the nodes under and including {@code root}. */
+    public static int size(FakeNode root) {
+        int count = 1;
+        for (FakeNode child : root.children) {
+            count += size(child);
+        }
+        return count;
+    }
+
+    @Override
+    public int getChildCount(FakeNode node) {
+        return node.getChildCount();
+    }
+
+    @Override
+    public FakeNode getChild(FakeNode node, int index) {
+        obtained++;
+        return node.getChild(index);
+    }
+
+    @Override
+    public void recycle(FakeNode node) {
+        recycled++;
+    }
+
+    // Nodes handed out by getChild and not recycled yet
+    public int getOutstanding() {
+        return obtained - recycled;
+    }
+}
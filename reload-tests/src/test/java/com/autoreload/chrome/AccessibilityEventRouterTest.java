@@ -0,0 +1,130 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.accessibility.AccessibilityEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityEventRouterTest {
+
+    private static final int CONTENT = AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED;
+    private static final int STATE = AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<AccessibilityEvent> delivered = new ArrayList<>();
+
+    private AccessibilityEventRouter router(String[] packages) {
+        AccessibilityEventRouter router = new AccessibilityEventRouter(handler, packages);
+        router.subscribe(CONTENT | STATE, (type, windowId, packageName, event) -> delivered.add(event));
+        return router;
+    }
+
+    private static AccessibilityEvent event(int type, String packageName) {
+        AccessibilityEvent event = new AccessibilityEvent(type);
+        event.setPackageName(packageName);
+        return event;
+    }
+
+    @Test
+    public void parsesConfiguredPackages() {
+        assertNull(AccessibilityEventRouter.browserPackages(null));
+        assertNull(AccessibilityEventRouter.browserPackages(" , "));
+        assertArrayEquals(new String[] {"com.android.chrome", "org.mozilla.firefox"},
+            AccessibilityEventRouter.browserPackages(" com.android.chrome,,org.mozilla.firefox "));
+    }
+
+    @Test
+    public void recognisesBrowsersByNameWithoutAList() {
+        AccessibilityEventRouter router = router(null);
+        assertTrue(router.isBrowser("com.android.chrome"));
+        assertTrue(router.isBrowser("com.duckduckgo.mobile.android"));
+        assertTrue(router.isBrowser("com.example.browser"));
+        assertFalse(router.isBrowser("com.whatsapp"));
+        assertFalse(router.isBrowser(null));
+        assertNull(router.getPackages());
+    }
+
+    @Test
+    public void configuredListIsExclusive() {
+        AccessibilityEventRouter router = router(new String[] {"com.example.reader"});
+        assertTrue(router.isBrowser("com.example.reader"));
+        assertFalse(router.isBrowser("com.android.chrome"));
+        assertArrayEquals(new String[] {"com.example.reader"}, router.getPackages());
+
+        router.dispatch(event(STATE, "com.android.chrome"));
+        router.dispatch(event(STATE, "com.example.reader"));
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    public void packageListCanBeReplaced() {
+        AccessibilityEventRouter router = router(new String[] {"com.example.reader"});
+        router.setBrowserPackages(null);
+        assertTrue(router.isBrowser("com.android.chrome"));
+        assertFalse(router.isBrowser("com.example.reader"));
+        assertNull(router.getPackages());
+
+        router.setBrowserPackages(new String[] {"org.mozilla.firefox"});
+        assertFalse(router.isBrowser("com.android.chrome"));
+        assertArrayEquals(new String[] {"org.mozilla.firefox"}, router.getPackages());
+    }
+
+    @Test
+    public void debouncedTypeDeliversLeadingAndTrailingEdge() {
+        AccessibilityEventRouter router = router(null);
+        router.setDebounce(CONTENT, 500);
+
+        for (int i = 0; i < 5; i++) {
+            router.dispatch(event(CONTENT, "com.android.chrome"));
+        }
+        assertEquals(1, delivered.size());
+        assertNotNull(delivered.get(0));
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(500));
+        assertEquals(2, delivered.size());
+        assertNull(delivered.get(1));
+
+        // Other types are not held back
+        router.dispatch(event(STATE, "com.android.chrome"));
+        router.dispatch(event(STATE, "com.android.chrome"));
+        assertEquals(4, delivered.size());
+    }
+
+    @Test
+    public void quietWindowDeliversRightAway() {
+        AccessibilityEventRouter router = router(null);
+        router.setDebounce(CONTENT, 500);
+
+        router.dispatch(event(CONTENT, "com.android.chrome"));
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(600));
+        router.dispatch(event(CONTENT, "com.android.chrome"));
+        assertEquals(2, delivered.size());
+        assertNotNull(delivered.get(1));
+    }
+
+    @Test
+    public void resetDropsTheTrailingDelivery() {
+        AccessibilityEventRouter router = router(null);
+        router.setDebounce(CONTENT, 500);
+
+        router.dispatch(event(CONTENT, "com.android.chrome"));
+        router.dispatch(event(CONTENT, "com.android.chrome"));
+        router.reset();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(500));
+        assertEquals(1, delivered.size());
+    }
+}
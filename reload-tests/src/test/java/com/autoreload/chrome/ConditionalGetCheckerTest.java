@@ -0,0 +1,247 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConditionalGetCheckerTest {
+
+    private HttpServer server;
+    private String base;
+    private final ConditionalGetChecker checker = new ConditionalGetChecker(Runnable::run);
+
+    // What the page handler answers with, changed by the tests
+    private volatile String etag = "\"v1\"";
+    private volatile String lastModified = null;
+    private volatile int status = 200;
+    private final AtomicInteger pageRequests = new AtomicInteger();
+    private final AtomicInteger oldRequests = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", this::page);
+        server.createContext("/old", exchange -> {
+            oldRequests.incrementAndGet();
+            exchange.getResponseHeaders().set("Location", "/page");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/loop", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/loop");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        checker.shutdown();
+        server.stop(0);
+    }
+
+    private void page(HttpExchange exchange) throws IOException {
+        pageRequests.incrementAndGet();
+        if (status == 200 && etag != null && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            if (etag != null) exchange.getResponseHeaders().set("ETag", etag);
+            if (lastModified != null) exchange.getResponseHeaders().set("Last-Modified", lastModified);
+            exchange.sendResponseHeaders(status, -1);
+        }
+        exchange.close();
+    }
+
+    /**
+     * Minimal server without TLS: hangs up on a TLS handshake, and answers
+     * a plain request with an ETag if {@code answer} is set, else hangs up
+     * on it as well.
+     */
+    private static void serve(ServerSocket socket, AtomicInteger handshakes, AtomicInteger plainRequests,
+            boolean answer) {
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    try (Socket client = socket.accept()) {
+                        InputStream in = client.getInputStream();
+                        if (in.read() == 0x16) {
+                            handshakes.incrementAndGet();
+                            continue;
+                        }
+                        plainRequests.incrementAndGet();
+                        if (!answer) continue;
+                        BufferedReader request = new BufferedReader(
+                            new InputStreamReader(in, StandardCharsets.US_ASCII));
+                        String line;
+                        do {
+                            line = request.readLine();
+                        } while (line != null && !line.isEmpty());
+                        String response = "HTTP/1.1 200 OK\r\nETag: \"v1\"\r\n"
+                            + "Content-Length: 0\r\nConnection: close\r\n\r\n";
+                        OutputStream out = client.getOutputStream();
+                        out.write(response.getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                    }
+                }
+            } catch (IOException closed) {
+                // Test is over
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Test
+    public void unchangedPageIsAHit() {
+        assertTrue(checker.isChanged(base + "/page"));
+        assertFalse(checker.isChanged(base + "/page"));
+        assertFalse(checker.isChanged(base + "/page"));
+        assertEquals(2, checker.getHitCount());
+        assertEquals(1, checker.getMissCount());
+    }
+
+    @Test
+    public void newEtagIsAChange() {
+        checker.isChanged(base + "/page");
+        etag = "\"v2\"";
+        assertTrue(checker.isChanged(base + "/page"));
+        assertFalse(checker.isChanged(base + "/page"));
+    }
+
+    @Test
+    public void sameLastModifiedWithoutEtagIsUnchanged() {
+        etag = null;
+        lastModified = "Wed, 14 Oct 2026 08:00:00 GMT";
+        assertTrue(checker.isChanged(base + "/page"));
+        assertFalse(checker.isChanged(base + "/page"));
+        lastModified = "Wed, 14 Oct 2026 09:00:00 GMT";
+        assertTrue(checker.isChanged(base + "/page"));
+    }
+
+    @Test
+    public void noValidatorsMeansChanged() {
+        etag = null;
+        assertTrue(checker.isChanged(base + "/page"));
+        assertTrue(checker.isChanged(base + "/page"));
+    }
+
+    @Test
+    public void redirectIsFollowedAndRemembered() {
+        assertTrue(checker.isChanged(base + "/old"));
+        assertFalse(checker.isChanged(base + "/old"));
+        assertEquals(1, oldRequests.get());
+        assertEquals(2, pageRequests.get());
+
+        checker.clear();
+        assertTrue(checker.isChanged(base + "/old"));
+        assertEquals(2, oldRequests.get());
+    }
+
+    @Test
+    public void redirectLoopGivesUp() {
+        assertTrue(checker.isChanged(base + "/loop"));
+    }
+
+    @Test
+    public void serverErrorIsAChange() {
+        checker.isChanged(base + "/page");
+        status = 503;
+        assertTrue(checker.isChanged(base + "/page"));
+        status = 200;
+        // The error didn't replace the stored validators
+        assertFalse(checker.isChanged(base + "/page"));
+    }
+
+    @Test
+    public void unreachableServerIsAChangeButNotCounted() {
+        server.stop(0);
+        assertTrue(checker.isChanged(base + "/page"));
+        assertEquals(0, checker.getHitCount());
+        assertEquals(0, checker.getMissCount());
+    }
+
+    @Test
+    public void urlBarAddressWithoutSchemeFallsBackToPlainHttp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            AtomicInteger handshakes = new AtomicInteger();
+            AtomicInteger plainRequests = new AtomicInteger();
+            serve(socket, handshakes, plainRequests, true);
+
+            String address = UrlReloader.readAddress(" 127.0.0.1:" + socket.getLocalPort() + "/page ");
+            assertEquals("127.0.0.1:" + socket.getLocalPort() + "/page", address);
+            assertTrue(ConditionalGetChecker.canCheck(address));
+
+            assertTrue(checker.isChanged(address));
+            assertEquals(1, handshakes.get());
+            assertEquals(1, plainRequests.get());
+
+            // Goes straight to http now
+            assertFalse(checker.isChanged(address));
+            assertEquals(1, handshakes.get());
+            assertEquals(2, plainRequests.get());
+            assertEquals(1, checker.getHitCount());
+        }
+    }
+
+    @Test
+    public void failedFallbackCountsAsChanged() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            AtomicInteger handshakes = new AtomicInteger();
+            AtomicInteger plainRequests = new AtomicInteger();
+            serve(socket, handshakes, plainRequests, false);
+
+            assertTrue(checker.isChanged("127.0.0.1:" + socket.getLocalPort() + "/page"));
+            assertEquals(1, handshakes.get());
+            // HttpURLConnection may retry a HEAD the server hung up on
+            assertTrue(plainRequests.get() >= 1);
+            assertEquals(0, checker.getHitCount());
+            assertEquals(0, checker.getMissCount());
+        }
+    }
+
+    @Test
+    public void explicitSchemeIsUsedAsGiven() {
+        assertTrue(ConditionalGetChecker.canCheck(base + "/page"));
+        assertFalse(ConditionalGetChecker.canCheck("chrome://newtab"));
+        assertEquals(base + "/page", UrlReloader.normalizeUrl(base + "/page"));
+
+        assertTrue(checker.isChanged(base + "/page"));
+        assertEquals(1, pageRequests.get());
+    }
+
+    @Test
+    public void checkReportsOnTheCallbackExecutor() throws InterruptedException {
+        checker.isChanged(base + "/page");
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean changed = new AtomicBoolean(true);
+
+        assertTrue(checker.check(base + "/page", result -> {
+            changed.set(result);
+            done.countDown();
+        }));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(changed.get());
+    }
+}
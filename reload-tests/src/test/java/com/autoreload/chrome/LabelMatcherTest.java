@@ -0,0 +1,68 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+public class LabelMatcherTest {
+
+    private final LabelMatcher matcher = new LabelMatcher();
+
+    private int matchLabel(String label) {
+        return matcher.match(label, null, null);
+    }
+
+    @Test
+    public void matchesWholeLabelsIgnoringCaseAndWhitespace() {
+        assertEquals("label \"refresh\"", matcher.describe(matchLabel("Refresh")));
+        assertEquals("label \"reload page\"", matcher.describe(matchLabel("  RELOAD page ")));
+        assertNotEquals(LabelMatcher.NO_MATCH, matchLabel("Neu laden"));
+        assertNotEquals(LabelMatcher.NO_MATCH, matchLabel("再読み込み"));
+        assertNotEquals(LabelMatcher.NO_MATCH, matchLabel("새로고침"));
+    }
+
+    @Test
+    public void ignoresPageTextThatOnlyContainsALabel() {
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel("Aggiornamenti disponibili"));
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel("ページを更新"));
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel("Reloads"));
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel("How to refresh your skin"));
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel(""));
+        assertEquals(LabelMatcher.NO_MATCH, matchLabel(null));
+    }
+
+    @Test
+    public void matchesContentDescription() {
+        assertNotEquals(LabelMatcher.NO_MATCH, matcher.match(null, "Reload", null));
+        assertEquals(LabelMatcher.NO_MATCH, matcher.match(null, "Reload the news feed", null));
+    }
+
+    @Test
+    public void matchesViewIdFragments() {
+        int rule = matcher.match(null, null, "com.android.chrome:id/refresh_button");
+        assertEquals("view id \"refresh\"", matcher.describe(rule));
+        assertEquals(LabelMatcher.NO_MATCH, matcher.match(null, null, "com.android.chrome:id/url_bar"));
+    }
+
+    @Test
+    public void textWinsOverViewId() {
+        int rule = matcher.match("Reload", null, "com.example:id/refresh");
+        assertEquals("label \"reload\"", matcher.describe(rule));
+    }
+
+    @Test
+    public void extraLabelsFromSettings() {
+        LabelMatcher custom = LabelMatcher.withExtraLabels(" Seite aktualisieren , ,Ververs ");
+        assertNotEquals(LabelMatcher.NO_MATCH, custom.match("seite aktualisieren", null, null));
+        assertNotEquals(LabelMatcher.NO_MATCH, custom.match("VERVERS", null, null));
+        assertNotEquals(LabelMatcher.NO_MATCH, custom.match("Refresh", null, null));
+        assertEquals(LabelMatcher.NO_MATCH, matcher.match("Ververs", null, null));
+    }
+
+    @Test
+    public void describesUnknownRules() {
+        assertEquals("none", matcher.describe(LabelMatcher.NO_MATCH));
+        assertEquals("none", matcher.describe(10000));
+    }
+}
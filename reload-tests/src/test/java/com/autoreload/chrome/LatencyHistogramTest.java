@@ -0,0 +1,54 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogram() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(-1, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    public void percentilesReportTheBucketBound() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(505, histogram.getMean());
+        // 500 ms is a bucket bound, 950 falls in the 1000 ms bucket
+        assertEquals(500, histogram.getPercentile(50));
+        assertEquals(1000, histogram.getPercentile(95));
+        assertEquals(10, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void valuesAboveTheLastBucketReportTheMax() {
+        histogram.record(20);
+        histogram.record(45000);
+        assertEquals(45000, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        histogram.record(-5);
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(-1, histogram.getPercentile(50));
+    }
+}
@@ -0,0 +1,149 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.autoreload.chrome.fixtures.FakeNode;
+import com.autoreload.chrome.fixtures.SyntheticTree;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class NodeTraversalTest {
+
+    private static final Clock FROZEN = () -> 0;
+
+    private final SyntheticTree tree = new SyntheticTree();
+
+    private NodeTraversal<FakeNode> traversal(int maxDepth, int maxNodes, long timeBudgetMs, Clock clock) {
+        return new NodeTraversal<>(tree, clock, maxDepth, maxNodes, timeBudgetMs);
+    }
+
+    @Test
+    public void visitsEveryNodeInPreOrder() {
+        FakeNode a = FakeNode.view("a");
+        FakeNode b = FakeNode.view("b");
+        FakeNode c = FakeNode.view("c");
+        FakeNode d = FakeNode.view("d");
+        FakeNode root = FakeNode.view("root").add(a.add(b)).add(c.add(d));
+        List<String> order = new ArrayList<>();
+
+        int result = traversal(64, 100, 100, FROZEN).walk(root, (node, depth) -> {
+            order.add(node.className + depth);
+            return NodeTraversal.CONTINUE;
+        });
+
+        assertEquals(NodeTraversal.RESULT_COMPLETE, result);
+        assertEquals("[root0, a1, b2, c1, d2]", order.toString());
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void walksFiftyThousandNodesWithoutLeaking() {
+        FakeNode root = SyntheticTree.browserWindow(50000, true, 1);
+        int[] visited = new int[1];
+
+        int result = traversal(128, 100000, 1000, FROZEN).walk(root, (node, depth) -> {
+            visited[0]++;
+            return NodeTraversal.CONTINUE;
+        });
+
+        assertEquals(NodeTraversal.RESULT_COMPLETE, result);
+        assertEquals(50000, visited[0]);
+        assertEquals(SyntheticTree.size(root), visited[0]);
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void skipChildrenLeavesSubtreeOut() {
+        FakeNode root = SyntheticTree.browserWindow(1000, true, 2);
+        int[] visited = new int[1];
+
+        int result = traversal(128, 100000, 1000, FROZEN).walk(root, (node, depth) -> {
+            visited[0]++;
+            return SyntheticTree.WEB_VIEW.equals(node.className)
+                ? NodeTraversal.SKIP_CHILDREN : NodeTraversal.CONTINUE;
+        });
+
+        assertEquals(NodeTraversal.RESULT_COMPLETE, result);
+        // Root, WebView, toolbar and its five children
+        assertEquals(8, visited[0]);
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void keepHandsTheNodeToTheCaller() {
+        FakeNode root = SyntheticTree.browserWindow(1000, false, 3);
+        NodeTraversal<FakeNode> traversal = traversal(128, 100000, 1000, FROZEN);
+        int[] path = new int[2];
+
+        int result = traversal.walk(root, (node, depth) -> {
+            if (!"Reload page".equals(node.contentDescription)) return NodeTraversal.CONTINUE;
+            path[0] = traversal.getChildIndex(0);
+            path[1] = traversal.getChildIndex(1);
+            return NodeTraversal.KEEP;
+        });
+
+        assertEquals(NodeTraversal.RESULT_STOPPED, result);
+        FakeNode kept = traversal.takeKept();
+        assertEquals("Reload page", kept.contentDescription);
+        assertSame(kept, root.getChild(path[0]).getChild(path[1]));
+        assertNull(traversal.takeKept());
+        // Only the kept node is still out, and it is the caller's to recycle
+        assertEquals(1, tree.getOutstanding());
+    }
+
+    @Test
+    public void stopRecyclesEverything() {
+        FakeNode root = SyntheticTree.browserWindow(1000, false, 4);
+
+        int result = traversal(128, 100000, 1000, FROZEN).walk(root,
+            (node, depth) -> depth == 3 ? NodeTraversal.STOP : NodeTraversal.CONTINUE);
+
+        assertEquals(NodeTraversal.RESULT_STOPPED, result);
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void nodeBudgetEndsTheWalkEarly() {
+        FakeNode root = SyntheticTree.browserWindow(5000, true, 5);
+        NodeTraversal<FakeNode> traversal = traversal(128, 1500, 1000, FROZEN);
+
+        int result = traversal.walk(root, (node, depth) -> NodeTraversal.CONTINUE);
+
+        assertEquals(NodeTraversal.RESULT_BUDGET_EXHAUSTED, result);
+        assertEquals(1500, traversal.getVisitedCount());
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void timeBudgetEndsTheWalkEarly() {
+        FakeNode root = SyntheticTree.browserWindow(50000, true, 6);
+        long[] now = {0};
+        // Every clock read takes a millisecond
+        NodeTraversal<FakeNode> traversal = traversal(128, 100000, 10, () -> now[0]++);
+
+        int result = traversal.walk(root, (node, depth) -> NodeTraversal.CONTINUE);
+
+        assertEquals(NodeTraversal.RESULT_BUDGET_EXHAUSTED, result);
+        assertTrue(traversal.getVisitedCount() < 1000);
+        assertEquals(0, tree.getOutstanding());
+    }
+
+    @Test
+    public void depthLimitIsNotABudget() {
+        FakeNode root = SyntheticTree.browserWindow(1000, false, 7);
+        int[] deepest = new int[1];
+
+        int result = traversal(2, 100000, 1000, FROZEN).walk(root, (node, depth) -> {
+            deepest[0] = Math.max(deepest[0], depth);
+            return NodeTraversal.CONTINUE;
+        });
+
+        assertEquals(NodeTraversal.RESULT_COMPLETE, result);
+        assertEquals(2, deepest[0]);
+        assertEquals(0, tree.getOutstanding());
+    }
+}
@@ -0,0 +1,87 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowSystemClock;
+
+@RunWith(RobolectricTestRunner.class)
+public class ReloadSchedulerTest {
+
+    private static final ReloadScheduler.Mode RATE = ReloadScheduler.Mode.FIXED_RATE;
+    private static final ReloadScheduler.Mode DELAY = ReloadScheduler.Mode.FIXED_DELAY;
+
+    @Test
+    public void fixedRateStaysOnTheGrid() {
+        // Fired 30 ms late, the next deadline doesn't move
+        assertEquals(2000, ReloadScheduler.nextDeadline(RATE, 1000, 1030, 1000));
+    }
+
+    @Test
+    public void fixedRateSkipsMissedSlots() {
+        assertEquals(4000, ReloadScheduler.nextDeadline(RATE, 1000, 3500, 1000));
+        // Exactly on a later slot counts as missed too
+        assertEquals(4000, ReloadScheduler.nextDeadline(RATE, 1000, 3000, 1000));
+    }
+
+    @Test
+    public void fixedDelayCountsFromWhenTheTickFired() {
+        assertEquals(2030, ReloadScheduler.nextDeadline(DELAY, 1000, 1030, 1000));
+        assertEquals(4500, ReloadScheduler.nextDeadline(DELAY, 1000, 3500, 1000));
+    }
+
+    @Test
+    public void subSecondPeriods() {
+        long deadline = 0;
+        for (int i = 0; i < 10; i++) {
+            deadline = ReloadScheduler.nextDeadline(RATE, deadline, deadline + 3, 250);
+        }
+        // No drift from the 3 ms lateness of every tick
+        assertEquals(2500, deadline);
+    }
+
+    @Test
+    public void jitterIsMeasuredWhereTheTaskRuns() {
+        AtomicInteger runs = new AtomicInteger();
+        LatencyHistogram jitter = new LatencyHistogram();
+        Handler main = new Handler(Looper.getMainLooper());
+        ReloadScheduler scheduler =
+            new ReloadScheduler(main, runs::incrementAndGet, jitter, SystemClock::uptimeMillis);
+        ShadowLooper schedulerLooper = shadowOf(findLooper("ReloadScheduler"));
+        try {
+            scheduler.start(RATE, 1000);
+            schedulerLooper.idle();
+            shadowOf(Looper.getMainLooper()).idle();
+            // The first tick fires on demand, it has no deadline
+            assertEquals(1, runs.get());
+            assertEquals(0, jitter.getCount());
+
+            // The tick is on time, but the main thread is busy for another 40 ms
+            ShadowSystemClock.advanceBy(Duration.ofMillis(1000));
+            schedulerLooper.idle();
+            ShadowSystemClock.advanceBy(Duration.ofMillis(40));
+            shadowOf(Looper.getMainLooper()).idle();
+            assertEquals(2, runs.get());
+            assertEquals(1, jitter.getCount());
+            assertEquals(40, jitter.getMax());
+        } finally {
+            scheduler.quit();
+        }
+    }
+
+    private static Looper findLooper(String threadName) {
+        for (Looper looper : ShadowLooper.getAllLoopers()) {
+            if (threadName.equals(looper.getThread().getName())) return looper;
+        }
+        throw new AssertionError("No looper on " + threadName);
+    }
+}
@@ -0,0 +1,72 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReloadStateMachineTest {
+
+    private final ReloadStateMachine state = new ReloadStateMachine();
+
+    @Test
+    public void nothingRunsWhileStopped() {
+        assertFalse(state.isActive());
+        assertEquals(ReloadStateMachine.NO_TOKEN, state.begin());
+    }
+
+    @Test
+    public void oneReloadInFlight() {
+        state.start();
+        int token = state.begin();
+        assertNotEquals(ReloadStateMachine.NO_TOKEN, token);
+        assertTrue(state.isInFlight());
+        assertEquals(token, state.currentToken());
+
+        assertEquals(ReloadStateMachine.NO_TOKEN, state.begin());
+        assertFalse(state.finish(token + 1));
+        assertTrue(state.isInFlight());
+    }
+
+    @Test
+    public void triggersWhileInFlightMergeIntoOne() {
+        state.start();
+        int token = state.begin();
+        state.begin();
+        state.begin();
+
+        assertTrue(state.finish(token));
+        assertEquals(ReloadStateMachine.NO_TOKEN, state.currentToken());
+
+        int next = state.begin();
+        assertFalse(state.finish(next));
+    }
+
+    @Test
+    public void stopInvalidatesTheReloadInFlight() {
+        state.start();
+        int token = state.begin();
+        state.stop();
+
+        assertFalse(state.finish(token));
+        assertFalse(state.isActive());
+    }
+
+    @Test
+    public void startRecoversFromAReloadLeftInFlight() {
+        state.start();
+        int stale = state.begin();
+        state.begin();
+
+        // A new service instance starts over without the old one finishing
+        state.start();
+        assertFalse(state.isInFlight());
+        int token = state.begin();
+        assertNotEquals(ReloadStateMachine.NO_TOKEN, token);
+        assertFalse(state.finish(stale));
+        assertTrue(state.isInFlight());
+        assertFalse(state.finish(token));
+    }
+}
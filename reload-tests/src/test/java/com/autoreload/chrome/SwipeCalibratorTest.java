@@ -0,0 +1,107 @@
+package com.autoreload.chrome;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SwipeCalibratorTest {
+
+    private static final String BROWSER = "com.android.chrome";
+
+    // The simulated browser reloads for swipes at least this long and slow
+    private static final long MIN_WORKING_DURATION = 120;
+    private static final float MIN_WORKING_DISTANCE = 0.25f;
+
+    private SharedPreferences prefs;
+
+    @Before
+    public void setUp() {
+        prefs = RuntimeEnvironment.getApplication()
+            .getSharedPreferences("AutoReloadPrefs", Context.MODE_PRIVATE);
+    }
+
+    private static boolean swipe(SwipeCalibrator calibrator) {
+        boolean started = calibrator.getDuration(BROWSER) >= MIN_WORKING_DURATION
+            && calibrator.getDistance(BROWSER) >= MIN_WORKING_DISTANCE;
+        calibrator.onResult(BROWSER, started);
+        return started;
+    }
+
+    private static int calibrate(SwipeCalibrator calibrator) {
+        int swipes = 0;
+        while (calibrator.isCalibrating(BROWSER) && swipes < 100) {
+            swipe(calibrator);
+            swipes++;
+        }
+        return swipes;
+    }
+
+    @Test
+    public void startsFromTheDefaultGesture() {
+        SwipeCalibrator calibrator = new SwipeCalibrator(prefs);
+        assertTrue(calibrator.isCalibrating(BROWSER));
+        assertEquals(GestureGeometry.DEFAULT_SWIPE_DISTANCE, calibrator.getDistance(BROWSER), 0);
+        assertNull(calibrator.describe(BROWSER));
+    }
+
+    @Test
+    public void findsAShorterGestureThatStillWorks() {
+        SwipeCalibrator calibrator = new SwipeCalibrator(prefs);
+        int swipes = calibrate(calibrator);
+
+        assertFalse(calibrator.isCalibrating(BROWSER));
+        assertTrue("took " + swipes + " swipes", swipes <= 12);
+        long duration = calibrator.getDuration(BROWSER);
+        float distance = calibrator.getDistance(BROWSER);
+        assertTrue(duration >= MIN_WORKING_DURATION);
+        assertTrue(duration < GestureGeometry.DEFAULT_SWIPE_DURATION);
+        assertTrue(distance >= MIN_WORKING_DISTANCE);
+        assertTrue(distance < GestureGeometry.DEFAULT_SWIPE_DISTANCE);
+        assertNotNull(calibrator.describe(BROWSER));
+        for (int i = 0; i < 40; i++) {
+            assertTrue(swipe(calibrator));
+        }
+        assertFalse(calibrator.isCalibrating(BROWSER));
+    }
+
+    @Test
+    public void profileSurvivesARestart() {
+        SwipeCalibrator calibrator = new SwipeCalibrator(prefs);
+        calibrate(calibrator);
+
+        SwipeCalibrator restarted = new SwipeCalibrator(prefs);
+        assertFalse(restarted.isCalibrating(BROWSER));
+        assertEquals(calibrator.getDuration(BROWSER), restarted.getDuration(BROWSER));
+        assertEquals(calibrator.getDistance(BROWSER), restarted.getDistance(BROWSER), 0);
+        assertTrue(restarted.isCalibrating("org.mozilla.firefox"));
+    }
+
+    @Test
+    public void failingSwipesStartCalibrationOver() {
+        SwipeCalibrator calibrator = new SwipeCalibrator(prefs);
+        calibrate(calibrator);
+
+        for (int i = 0; i < 20; i++) {
+            calibrator.onResult(BROWSER, i % 2 == 0);
+        }
+        assertTrue(calibrator.isCalibrating(BROWSER));
+        assertTrue(new SwipeCalibrator(prefs).isCalibrating(BROWSER));
+    }
+
+    @Test
+    public void corruptEntryMeansCalibrating() {
+        prefs.edit().putString("swipe_profile_" + BROWSER, "fast").apply();
+        assertTrue(new SwipeCalibrator(prefs).isCalibrating(BROWSER));
+    }
+}